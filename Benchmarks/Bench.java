@@ -0,0 +1,59 @@
+package byow.Benchmarks;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * A small benchmark harness. Each benchmark is warmed up, then timed over several
+ * measurement rounds, and reports the best time per operation together with the bytes
+ * allocated per operation, as measured by the JVM's per-thread allocation counter.
+ */
+public final class Bench {
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int ROUNDS = 5;
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private Bench() {
+    }
+
+    /**
+     * A benchmark body that performs some number of operations per call.
+     */
+    public interface Body {
+        /**
+         * Runs the benchmark once.
+         * @return a value derived from the work done, so that it cannot be optimized away
+         */
+        long run();
+    }
+
+    /**
+     * Runs and reports one benchmark.
+     * @param name name of the benchmark
+     * @param operations number of operations one call to body performs
+     * @param body the benchmark body
+     */
+    public static void run(String name, long operations, Body body) {
+        long sink = 0;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            sink += body.run();
+        }
+        long best = Long.MAX_VALUE;
+        long allocated = Long.MAX_VALUE;
+        long thread = Thread.currentThread().getId();
+        for (int i = 0; i < ROUNDS; i++) {
+            long bytes = THREADS.getThreadAllocatedBytes(thread);
+            long start = System.nanoTime();
+            sink += body.run();
+            long elapsed = System.nanoTime() - start;
+            bytes = THREADS.getThreadAllocatedBytes(thread) - bytes;
+            best = Math.min(best, elapsed);
+            allocated = Math.min(allocated, bytes);
+        }
+        double nanosPerOp = (double) best / operations;
+        double bytesPerOp = (double) allocated / operations;
+        double mbPerSecond = allocated / (best / 1e9) / (1 << 20);
+        System.out.printf("%-62s %14.1f ns/op %14.1f B/op %10.1f MB/s alloc  (%d)%n",
+                name, nanosPerOp, bytesPerOp, mbPerSecond, sink & 1);
+    }
+}
@@ -0,0 +1,95 @@
+package byow.Benchmarks;
+
+import byow.Core.ChunkedWorld;
+import byow.TileEngine.TETile;
+import byow.TileEngine.Tileset;
+
+/**
+ * Checks, for a few seeds, that every floor tile in a block of chunks can be reached from
+ * the start without leaving the block, so that the connectors join neighbouring chunks,
+ * and that a chunk generated again after being dropped is the same as before. Then
+ * reports how long a chunk takes to generate.
+ */
+public class ChunkedWorldBenchmark {
+    private static final int WIDTH = 90;
+    private static final int HEIGHT = 50;
+    private static final int TOTAL = 200;
+    private static final int CHUNKS = 4;
+    private static final int SEEDS = 10;
+    private static final int[] DX = {0, -1, 0, 1};
+    private static final int[] DY = {1, 0, -1, 0};
+
+    public static void main(String[] args) {
+        int w = WIDTH * CHUNKS;
+        int h = HEIGHT * CHUNKS;
+        for (long seed = 0; seed < SEEDS; seed++) {
+            ChunkedWorld world = new ChunkedWorld(seed, WIDTH, HEIGHT, TOTAL, CHUNKS * CHUNKS);
+            TETile[][] block = new TETile[w][h];
+            world.copyRegion(block, 0, 0);
+            int[] start = new int[2];
+            world.start(start);
+            int floors = 0;
+            for (TETile[] column : block) {
+                for (TETile tile : column) {
+                    floors += tile == Tileset.MY_FLOOR ? 1 : 0;
+                }
+            }
+            int reached = reachable(block, start[0], start[1]);
+            if (reached != floors) {
+                throw new IllegalStateException("Seed " + seed + ": " + (floors - reached)
+                        + " of " + floors + " floor tiles cannot be reached from the start");
+            }
+
+            // A world that keeps one chunk drops and generates chunks again all the time
+            ChunkedWorld small = new ChunkedWorld(seed, WIDTH, HEIGHT, TOTAL, 1);
+            for (int x = w - 1; x >= 0; x -= WIDTH / 2) {
+                for (int y = h - 1; y >= 0; y -= HEIGHT / 2) {
+                    if (small.get(x, y) != block[x][y]) {
+                        throw new IllegalStateException("Seed " + seed + ": chunk differs when generated again");
+                    }
+                }
+            }
+            System.out.printf("seed %d: %d chunks, all %d floor tiles connected%n", seed, CHUNKS * CHUNKS, floors);
+        }
+
+        Bench.run("generate a " + WIDTH + "x" + HEIGHT + " chunk", CHUNKS * CHUNKS, () -> {
+            ChunkedWorld world = new ChunkedWorld(1, WIDTH, HEIGHT, TOTAL, 1);
+            long sum = 0;
+            for (int cx = 0; cx < CHUNKS; cx++) {
+                for (int cy = 0; cy < CHUNKS; cy++) {
+                    sum += world.get(cx * WIDTH, cy * HEIGHT).character();
+                }
+            }
+            return sum;
+        });
+    }
+
+    /**
+     * Counts the floor tiles reachable from (x, y) by a flood fill over floor tiles.
+     */
+    private static int reachable(TETile[][] tiles, int x, int y) {
+        int width = tiles.length;
+        int height = tiles[0].length;
+        boolean[] seen = new boolean[width * height];
+        int[] queue = new int[width * height];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = x * height + y;
+        seen[x * height + y] = true;
+        while (head < tail) {
+            int cell = queue[head++];
+            for (int d = 0; d < DX.length; d++) {
+                int nx = cell / height + DX[d];
+                int ny = cell % height + DY[d];
+                if (nx < 0 || nx >= width || ny < 0 || ny >= height || seen[nx * height + ny]
+                        || tiles[nx][ny] != Tileset.MY_FLOOR) {
+                    continue;
+                }
+                seen[nx * height + ny] = true;
+                queue[tail++] = nx * height + ny;
+            }
+        }
+        // The start itself is counted as reached when it is a floor
+        return tiles[x][y] == Tileset.MY_FLOOR ? tail : tail - 1;
+    }
+}
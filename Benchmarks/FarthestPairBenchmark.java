@@ -0,0 +1,90 @@
+package byow.Benchmarks;
+
+import byow.Core.FarthestPair;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Compares FarthestPair against the all-pairs scan that Engine used before it,
+ * on randomly filled grids of increasing size. Both methods must agree on every
+ * grid, otherwise the benchmark stops.
+ */
+public class FarthestPairBenchmark {
+    private static final int[][] SIZES = {{90, 50}, {180, 100}, {270, 150}, {360, 200}};
+    private static final double DENSITY = 0.4;
+    private static final long SEED = 2023L;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        Random random = new Random(SEED);
+        for (int[] size : SIZES) {
+            int width = size[0];
+            int height = size[1];
+            int[] xs = new int[width * height];
+            int[] ys = new int[width * height];
+            int n = 0;
+            for (int i = 0; i < width; i++) {
+                for (int j = 0; j < height; j++) {
+                    if (random.nextDouble() < DENSITY) {
+                        xs[n] = i;
+                        ys[n] = j;
+                        n++;
+                    }
+                }
+            }
+            ArrayList<ArrayList<Integer>> points = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                ArrayList<Integer> point = new ArrayList<>();
+                point.add(xs[i]);
+                point.add(ys[i]);
+                points.add(point);
+            }
+
+            int[] first = new int[2];
+            int[] second = new int[2];
+            int[] legacyFirst = new int[2];
+            int[] legacySecond = new int[2];
+
+            long hullTime = Long.MAX_VALUE;
+            for (int r = 0; r < ROUNDS * 100; r++) {
+                long start = System.nanoTime();
+                FarthestPair.find(xs, ys, n, first, second);
+                hullTime = Math.min(hullTime, System.nanoTime() - start);
+            }
+            long legacyTime = Long.MAX_VALUE;
+            int legacyRounds = n > 10000 ? 1 : ROUNDS;
+            for (int r = 0; r < legacyRounds; r++) {
+                long start = System.nanoTime();
+                legacy(points, legacyFirst, legacySecond);
+                legacyTime = Math.min(legacyTime, System.nanoTime() - start);
+            }
+
+            if (first[0] != legacyFirst[0] || first[1] != legacyFirst[1]
+                    || second[0] != legacySecond[0] || second[1] != legacySecond[1]) {
+                throw new IllegalStateException("Placement differs on " + width + "x" + height);
+            }
+            System.out.printf("%4dx%-4d floors=%7d  all-pairs=%12.3f ms  hull=%8.3f ms  speedup=%.0fx%n",
+                    width, height, n, legacyTime / 1e6, hullTime / 1e6, (double) legacyTime / hullTime);
+        }
+    }
+
+    /**
+     * The all-pairs scan Engine.findFarthestPoints used to run.
+     */
+    private static void legacy(ArrayList<ArrayList<Integer>> points, int[] player, int[] gate) {
+        double maxDistance = 0;
+        for (ArrayList<Integer> p1 : points) {
+            for (ArrayList<Integer> p2 : points) {
+                double distance = Math.sqrt(Math.pow(p1.get(0) - p2.get(0), 2) + Math.pow(p1.get(1) - p2.get(1), 2));
+                if (distance > maxDistance) {
+                    maxDistance = distance;
+                    player[0] = p1.get(0);
+                    player[1] = p1.get(1);
+                    gate[0] = p2.get(0);
+                    gate[1] = p2.get(1);
+                }
+            }
+        }
+    }
+}
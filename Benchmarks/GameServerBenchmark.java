@@ -0,0 +1,124 @@
+package byow.Benchmarks;
+
+import byow.Core.GameServer;
+import byow.Core.WorldCache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Opens many idle connections to a GameServer in the same JVM and reports how many sessions
+ * are playing, how many threads they take and how much heap each one holds. Every connection
+ * reads its greeting, so it is known to be served, except the ones turned away with BUSY
+ * when the server runs on a limited number of platform threads. It then waits for the server
+ * to close the idle sessions, and checks that a new connection is served afterwards.
+ *
+ * Run as a program:
+ *   GameServerBenchmark [CONNECTIONS [THREADS [IDLE_SECONDS]]]
+ * with 1000 connections, -Dbyow.serverThreads or 1000 threads and sessions closed after 5
+ * idle seconds by default. Opening thousands of connections may need a higher limit of open
+ * files (ulimit -n).
+ */
+public class GameServerBenchmark {
+    private static final int DEFAULT_CONNECTIONS = 1000;
+    private static final int GREETING = "PIKA-RUN".length();
+    private static final long WAIT_MILLIS = 30000;
+    private static final int DEFAULT_IDLE_SECONDS = 5;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_CONNECTIONS;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Integer.getInteger("byow.serverThreads", 1000);
+        int idleSeconds = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_IDLE_SECONDS;
+        GameServer server = new GameServer(InetAddress.getLoopbackAddress(), 0, new WorldCache(0, null),
+                threads, idleSeconds);
+        Thread serving = new Thread(server::serve, "pika-accept");
+        serving.setDaemon(true);
+        serving.start();
+
+        long heapBefore = usedHeap();
+        int threadsBefore = ManagementFactory.getThreadMXBean().getThreadCount();
+        List<Socket> connections = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            connections.add(new Socket(InetAddress.getLoopbackAddress(), server.port()));
+        }
+        int expected = Math.min(count, server.maxSessions());
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        while (server.sessions() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        int greeted = 0;
+        int busy = 0;
+        for (Socket connection : connections) {
+            String first = firstWord(connection);
+            greeted += first.equals("PIKA-RUN") ? 1 : 0;
+            busy += first.equals("BUSY") ? 1 : 0;
+        }
+        long heapAfter = usedHeap();
+        int threadsAfter = ManagementFactory.getThreadMXBean().getThreadCount();
+
+        int sessions = server.sessions();
+        System.out.printf("%d connections, %d sessions playing (%s), %d greeted, %d turned away%n", count,
+                sessions, server.virtualThreads() ? "virtual threads"
+                        : "at most " + server.maxSessions() + " platform threads", greeted, busy);
+        System.out.printf("%d platform threads added, %.0f bytes of heap per connection%n",
+                threadsAfter - threadsBefore, (heapAfter - heapBefore) / (double) count);
+
+        boolean served = true;
+        int left = 0;
+        if (idleSeconds > 0) {
+            long start = System.currentTimeMillis();
+            deadline = start + idleSeconds * 1000L + WAIT_MILLIS;
+            while (server.sessions() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            double waited = (System.currentTimeMillis() - start) / 1000.0;
+            left = server.sessions();
+            try (Socket late = new Socket(InetAddress.getLoopbackAddress(), server.port())) {
+                served = firstWord(late).equals("PIKA-RUN");
+            }
+            System.out.printf("idle sessions closed after %.1f s, %d left; a new connection was %s%n",
+                    waited, left, served ? "served" : "not served");
+        }
+        for (Socket connection : connections) {
+            connection.close();
+        }
+        server.close();
+        if (sessions < expected || greeted < expected || greeted + busy < count || !served || left > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Reads the first word the server sends on a connection: the greeting, or BUSY.
+     *
+     * @return The word, or nothing if none arrived within a second.
+     */
+    private static String firstWord(Socket connection) throws IOException {
+        InputStream in = connection.getInputStream();
+        connection.setSoTimeout(1000);
+        StringBuilder word = new StringBuilder();
+        try {
+            int c;
+            while ((c = in.read()) >= 0 && c != ' ' && c != '\n') {
+                word.append((char) c);
+            }
+        } catch (IOException excp) {
+            return "";
+        }
+        return word.toString();
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,200 @@
+package byow.Benchmarks;
+
+import byow.Core.Engine;
+import byow.Core.FarthestPair;
+import byow.Core.Room;
+import byow.TileEngine.AnsiRenderer;
+import byow.TileEngine.Camera;
+import byow.TileEngine.FrameImage;
+import byow.TileEngine.TETile;
+import byow.TileEngine.Tileset;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Random;
+
+/**
+ * Benchmarks for the paths that matter for regressions: world generation, spawn and exit
+ * placement, movement, processing long inputs and composing a frame. Run with
+ * -Djava.awt.headless=true on machines without a display.
+ *
+ * StdDraw opens its window as soon as it is loaded, so the frame benchmark draws every
+ * tile's texture onto a BufferedImage with TETile.drawTexture, without StdDraw, and
+ * composes the same frame in a FrameImage the way Java2DRenderer does. The view benchmark
+ * pans a Camera across worlds of growing size and composes its view the same way, to show
+ * that the cost of a frame follows the window and not the world. The terminal
+ * benchmarks encode frames with AnsiRenderer into a channel that discards them.
+ */
+public class HotPathBenchmarks {
+    private static final int WIDTH = 90;
+    private static final int HEIGHT = 50;
+    private static final int TILE_SIZE = 16;
+    private static final int[] ROOM_COUNTS = {50, 100, 200};
+    private static final int[] INPUT_LENGTHS = {10000, 100000, 1000000};
+    private static final int SEEDS = 100;
+    private static final int[] WORLD_SCALES = {1, 10, 50};
+
+    public static void main(String[] args) {
+        generation();
+        placement();
+        input();
+        frame();
+        view();
+        terminal();
+    }
+
+    private static void generation() {
+        for (int rooms : ROOM_COUNTS) {
+            Bench.run("Room.drawWorld rooms=" + rooms, SEEDS, () -> {
+                long sum = 0;
+                for (long seed = 0; seed < SEEDS; seed++) {
+                    sum += Room.generate(seed, WIDTH, HEIGHT, rooms)[WIDTH / 2][HEIGHT / 2].character();
+                }
+                return sum;
+            });
+        }
+    }
+
+    private static void placement() {
+        int[][] xs = new int[SEEDS][WIDTH * HEIGHT];
+        int[][] ys = new int[SEEDS][WIDTH * HEIGHT];
+        int[] counts = new int[SEEDS];
+        for (int s = 0; s < SEEDS; s++) {
+            TETile[][] world = Room.generate(s, WIDTH, HEIGHT, 200);
+            for (int x = 0; x < WIDTH; x++) {
+                for (int y = 0; y < HEIGHT; y++) {
+                    if (world[x][y] == Tileset.MY_FLOOR) {
+                        xs[s][counts[s]] = x;
+                        ys[s][counts[s]] = y;
+                        counts[s]++;
+                    }
+                }
+            }
+        }
+        int[] player = new int[2];
+        int[] gate = new int[2];
+        Bench.run("FarthestPair.find", SEEDS, () -> {
+            long sum = 0;
+            for (int s = 0; s < SEEDS; s++) {
+                FarthestPair.find(xs[s], ys[s], counts[s], player, gate);
+                sum += player[0] + gate[1];
+            }
+            return sum;
+        });
+    }
+
+    private static void input() {
+        Random random = new Random(1);
+        for (int length : INPUT_LENGTHS) {
+            StringBuilder keys = new StringBuilder("n42s");
+            for (int i = 0; i < length; i++) {
+                keys.append("wasd".charAt(random.nextInt(4)));
+            }
+            String input = keys.toString();
+            Bench.run("Engine.interactWithInputString n=" + length, length, () -> {
+                new Engine();
+                return Engine.interactWithInputString(input)[1][1].character();
+            });
+        }
+    }
+
+    private static void frame() {
+        TETile[][] world = Room.generate(42, WIDTH, HEIGHT, 200);
+        BufferedImage canvas = new BufferedImage(WIDTH * TILE_SIZE, HEIGHT * TILE_SIZE,
+                BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = canvas.createGraphics();
+        Bench.run("TETile.drawTexture of a frame onto a BufferedImage", WIDTH * HEIGHT, () -> {
+            long drawn = 0;
+            for (int x = 0; x < WIDTH; x++) {
+                for (int y = 0; y < HEIGHT; y++) {
+                    int centerX = x * TILE_SIZE + TILE_SIZE / 2;
+                    int centerY = (HEIGHT - y) * TILE_SIZE - TILE_SIZE / 2;
+                    if (world[x][y].drawTexture(g, centerX, centerY)) {
+                        drawn++;
+                    }
+                }
+            }
+            return drawn;
+        });
+        FrameImage frame = new FrameImage(WIDTH, HEIGHT);
+        Bench.run("Java2DRenderer frame from tile bitmaps", WIDTH * HEIGHT, () -> {
+            for (int x = 0; x < WIDTH; x++) {
+                for (int y = 0; y < HEIGHT; y++) {
+                    frame.draw(world[x][y], x, y);
+                }
+            }
+            g.drawImage(frame.image(), 0, 0, null);
+            return frame.image().getRGB(0, 0);
+        });
+    }
+
+    private static void view() {
+        TETile[][] chunk = Room.generate(42, WIDTH, HEIGHT, 200);
+        FrameImage frame = new FrameImage(WIDTH, HEIGHT);
+        TETile[][] view = new TETile[WIDTH][HEIGHT];
+        for (int scale : WORLD_SCALES) {
+            // The world is the same chunk repeated, which is all the view needs
+            int worldWidth = WIDTH * scale;
+            int worldHeight = HEIGHT * scale;
+            TETile[][] world = new TETile[worldWidth][];
+            for (int x = 0; x < worldWidth; x++) {
+                world[x] = new TETile[worldHeight];
+                for (int y = 0; y < worldHeight; y += HEIGHT) {
+                    System.arraycopy(chunk[x % WIDTH], 0, world[x], y, HEIGHT);
+                }
+            }
+            Camera camera = new Camera(WIDTH, HEIGHT, WIDTH / 4, HEIGHT / 4);
+            camera.setBounds(worldWidth, worldHeight);
+            int[] step = new int[1];
+            Bench.run("Camera view of a " + worldWidth + "x" + worldHeight + " world", WIDTH * HEIGHT, () -> {
+                step[0]++;
+                camera.follow(step[0] % worldWidth, (step[0] / 2) % worldHeight);
+                for (int x = 0; x < WIDTH; x++) {
+                    System.arraycopy(world[camera.left() + x], camera.bottom(), view[x], 0, HEIGHT);
+                    for (int y = 0; y < HEIGHT; y++) {
+                        frame.draw(view[x][y], x, y);
+                    }
+                }
+                return frame.image().getRGB(0, 0);
+            });
+        }
+    }
+
+    private static void terminal() {
+        TETile[][] world = Room.generate(42, WIDTH, HEIGHT, 200);
+        long[] written = new long[1];
+        WritableByteChannel sink = new WritableByteChannel() {
+            @Override
+            public int write(ByteBuffer src) {
+                int n = src.remaining();
+                src.position(src.limit());
+                written[0] += n;
+                return n;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        AnsiRenderer renderer = new AnsiRenderer(sink);
+        Bench.run("AnsiRenderer full frame", 1, () -> {
+            renderer.renderFrame(world);
+            return written[0];
+        });
+        TETile first = world[1][1];
+        TETile second = world[2][1];
+        Bench.run("AnsiRenderer two changed tiles", 1, () -> {
+            world[1][1] = world[1][1] == first ? second : first;
+            world[2][1] = world[2][1] == second ? first : second;
+            renderer.renderChanges(world);
+            return written[0];
+        });
+    }
+}
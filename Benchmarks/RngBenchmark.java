@@ -0,0 +1,158 @@
+package byow.Benchmarks;
+
+import byow.Core.Rng;
+import byow.Core.Room;
+import byow.TileEngine.TETile;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compares java.util.Random, which Room used to draw from, with the legacy and fast Rng
+ * generators, on bare draws and on whole worlds. Before timing, checks that the legacy
+ * generator draws the same numbers and generates the same worlds as java.util.Random.
+ * Every generator is warmed up before any is timed, since whichever ran first would
+ * otherwise pay for compiling Room. The generators then take turns, one round each, so
+ * that a slow stretch of the machine hits all of them alike, and each reports the fastest,
+ * median and slowest of its rounds rather than one number.
+ *
+ * Each generator draws in a loop of its own, so that the JIT sees one generator at the
+ * call and can inline it; a loop shared by all three would mostly time the interface call.
+ * Room's calls are shared by every generator a program uses, as they are here.
+ */
+public class RngBenchmark {
+    private static final int WIDTH = 90;
+    private static final int HEIGHT = 50;
+    private static final int TOTAL = 200;
+    private static final int SEEDS = 100;
+    private static final int DRAWS = 1_000_000;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 21;
+    private static final int[] BOUNDS = {1, 2, 5, 45, 64, 1000, Integer.MAX_VALUE};
+
+    /**
+     * Room's old generator behind the Rng interface.
+     */
+    private static Rng random(long seed) {
+        Random random = new Random(seed);
+        return new Rng() {
+            @Override
+            public int nextInt(int bound) {
+                return random.nextInt(bound);
+            }
+
+            @Override
+            public long nextLong() {
+                return random.nextLong();
+            }
+
+            @Override
+            public double nextDouble() {
+                return random.nextDouble();
+            }
+
+            @Override
+            public Rng split() {
+                return random(random.nextLong());
+            }
+        };
+    }
+
+    private interface Generator {
+        Rng create(long seed);
+    }
+
+
+    private static void check() {
+        for (long seed = -5; seed < 1000; seed++) {
+            Random expected = new Random(seed);
+            Rng legacy = Rng.legacy(seed);
+            for (int bound : BOUNDS) {
+                if (expected.nextInt(bound) != legacy.nextInt(bound)
+                        || expected.nextLong() != legacy.nextLong()
+                        || expected.nextDouble() != legacy.nextDouble()) {
+                    throw new IllegalStateException("Legacy draws differ for seed " + seed);
+                }
+            }
+        }
+        for (long seed = 0; seed < SEEDS; seed++) {
+            String expected = TETile.toString(Room.generate(random(seed), WIDTH, HEIGHT, TOTAL));
+            if (!expected.equals(TETile.toString(Room.generate(seed, WIDTH, HEIGHT, TOTAL)))) {
+                throw new IllegalStateException("Legacy world differs for seed " + seed);
+            }
+        }
+    }
+
+    private static long drawRandom() {
+        Random random = new Random(42);
+        long sum = 0;
+        for (int i = 0; i < DRAWS; i++) {
+            sum += random.nextInt(5);
+        }
+        return sum;
+    }
+
+    private static long drawLegacy() {
+        Rng rng = Rng.legacy(42);
+        long sum = 0;
+        for (int i = 0; i < DRAWS; i++) {
+            sum += rng.nextInt(5);
+        }
+        return sum;
+    }
+
+    private static long drawFast() {
+        Rng rng = Rng.fast(42);
+        long sum = 0;
+        for (int i = 0; i < DRAWS; i++) {
+            sum += rng.nextInt(5);
+        }
+        return sum;
+    }
+
+    private static long worlds(Generator generator) {
+        long sum = 0;
+        for (long seed = 0; seed < SEEDS; seed++) {
+            sum += Room.generate(generator.create(seed), WIDTH, HEIGHT, TOTAL)[1][1].character();
+        }
+        return sum;
+    }
+
+    /**
+     * Warms up every body, then times them taking turns for ROUNDS rounds, and prints the
+     * fastest, median and slowest time per operation of each.
+     */
+    private static void compare(String task, long operations, String[] names, Bench.Body... bodies) {
+        long sink = 0;
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            for (Bench.Body body : bodies) {
+                sink += body.run();
+            }
+        }
+        long[][] times = new long[bodies.length][ROUNDS];
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int g = 0; g < bodies.length; g++) {
+                long start = System.nanoTime();
+                sink += bodies[g].run();
+                times[g][round] = System.nanoTime() - start;
+            }
+        }
+        for (int g = 0; g < bodies.length; g++) {
+            Arrays.sort(times[g]);
+            System.out.printf("%-40s %10.1f min %10.1f median %10.1f max ns/op  (%d)%n",
+                    task + " " + names[g], times[g][0] / (double) operations,
+                    times[g][ROUNDS / 2] / (double) operations,
+                    times[g][ROUNDS - 1] / (double) operations, sink & 1);
+        }
+    }
+
+    public static void main(String[] args) {
+        check();
+        String[] names = {"java.util.Random", "legacy", "fast"};
+        System.out.println(ROUNDS + " rounds each, taking turns");
+        compare("nextInt x" + DRAWS, DRAWS, names,
+                RngBenchmark::drawRandom, RngBenchmark::drawLegacy, RngBenchmark::drawFast);
+        compare("generate " + WIDTH + "x" + HEIGHT + " x" + SEEDS, SEEDS, names,
+                () -> worlds(RngBenchmark::random), () -> worlds(Rng::legacy), () -> worlds(Rng::fast));
+    }
+}
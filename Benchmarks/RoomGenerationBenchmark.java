@@ -0,0 +1,27 @@
+package byow.Benchmarks;
+
+import byow.Core.Room;
+
+/**
+ * Reports how long Room takes to generate a 200-room world as the map grows.
+ */
+public class RoomGenerationBenchmark {
+    private static final int[][] SIZES = {{90, 50}, {180, 100}, {360, 200}, {720, 400}};
+    private static final int TOTAL = 200;
+    private static final int SEEDS = 200;
+
+    public static void main(String[] args) {
+        for (int[] size : SIZES) {
+            for (long seed = 0; seed < SEEDS / 4; seed++) {
+                Room.generate(seed, size[0], size[1], TOTAL);
+            }
+            long start = System.nanoTime();
+            for (long seed = 0; seed < SEEDS; seed++) {
+                Room.generate(seed, size[0], size[1], TOTAL);
+            }
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("%4dx%-4d rooms=%d  %.3f ms/world%n",
+                    size[0], size[1], TOTAL, elapsed / 1e6 / SEEDS);
+        }
+    }
+}
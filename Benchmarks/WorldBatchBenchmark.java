@@ -0,0 +1,40 @@
+package byow.Benchmarks;
+
+import byow.Core.Room;
+import byow.Core.WorldBatch;
+import byow.TileEngine.TETile;
+
+/**
+ * Generates the same range of seeds one at a time and with WorldBatch, checks
+ * that every world matches, and reports how long each took.
+ */
+public class WorldBatchBenchmark {
+    private static final int WIDTH = 90;
+    private static final int HEIGHT = 50;
+    private static final int TOTAL = 200;
+    private static final int SEEDS = 2000;
+
+    public static void main(String[] args) {
+        long[] seeds = WorldBatch.range(0, SEEDS);
+
+        long start = System.nanoTime();
+        String[] expected = new String[seeds.length];
+        for (int i = 0; i < seeds.length; i++) {
+            expected[i] = TETile.toString(Room.generate(seeds[i], WIDTH, HEIGHT, TOTAL));
+        }
+        long sequential = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        TETile[][][] worlds = WorldBatch.generate(seeds, WIDTH, HEIGHT, TOTAL);
+        long parallel = System.nanoTime() - start;
+
+        for (int i = 0; i < seeds.length; i++) {
+            if (!expected[i].equals(TETile.toString(worlds[i]))) {
+                throw new IllegalStateException("World differs for seed " + seeds[i]);
+            }
+        }
+        System.out.printf("%d seeds  sequential=%.1f ms  fork/join=%.1f ms  cores=%d  speedup=%.1fx%n",
+                seeds.length, sequential / 1e6, parallel / 1e6,
+                Runtime.getRuntime().availableProcessors(), (double) sequential / parallel);
+    }
+}
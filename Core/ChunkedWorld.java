@@ -0,0 +1,362 @@
+package byow.Core;
+
+import byow.TileEngine.TETile;
+import byow.TileEngine.TileGrid;
+import byow.TileEngine.Tileset;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * A world without edges, made of fixed-size chunks that are generated when they are first
+ * looked at. Each chunk is an ordinary Room world generated from its own seed, which is
+ * derived from the world's seed and the chunk's position, so a chunk always comes out the
+ * same no matter when or in which order it is generated. Chunks have no earlier worlds to
+ * match, so they are generated with the fast generator rather than the legacy one.
+ *
+ * Neighbouring chunks are joined through connectors: every border between two chunks has
+ * one connector tile, at a position also derived from the seed, and each of the two chunks
+ * carves a hallway from its side of the connector to its nearest floor. Both chunks agree
+ * on where the connector is without looking at each other. Room sometimes leaves a pocket
+ * of floor cut off from the rest, so before the connectors are carved every pocket is
+ * joined to the rest of its chunk by a hallway as well, and every floor tile of the world
+ * can be reached from every other.
+ *
+ * Only the most recently used chunks are kept, as TileGrids, and the others are dropped
+ * and generated again when they are needed, so memory stays the same however far the
+ * player travels. Changes made with set() to a chunk that is later dropped are lost.
+ * Coordinates are world coordinates and may be negative; chunk (0, 0) starts at (0, 0).
+ */
+public class ChunkedWorld {
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+    private static final int VERTICAL = 1;
+    private static final int HORIZONTAL = 2;
+    private static final int[] DX = {0, -1, 0, 1};
+    private static final int[] DY = {1, 0, -1, 0};
+
+    // Chunks kept at once unless another capacity is given
+    static final int DEFAULT_CAPACITY = 64;
+
+    private final long seed;
+    private final int chunkWidth;
+    private final int chunkHeight;
+    private final int total;
+    private final int capacity;
+    private final LinkedHashMap<Long, TileGrid> chunks = new LinkedHashMap<>(16, 0.75f, true);
+    private long generated;
+
+    /**
+     * Creates a world whose chunks are the size of the game window, with as many rooms
+     * and hallways per chunk as a regular game, keeping at most 64 chunks.
+     *
+     * @param seed The seed of the world.
+     */
+    public ChunkedWorld(long seed) {
+        this(seed, Engine.WIDTH, Engine.HEIGHT, 200, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a world.
+     *
+     * @param seed        The seed of the world.
+     * @param chunkWidth  The width of each chunk in tiles.
+     * @param chunkHeight The height of each chunk in tiles.
+     * @param total       The total number of rooms and hallways per chunk.
+     * @param capacity    The most chunks to keep at once.
+     */
+    public ChunkedWorld(long seed, int chunkWidth, int chunkHeight, int total, int capacity) {
+        if (chunkWidth < 8 || chunkHeight < 8 || capacity < 1) {
+            throw new IllegalArgumentException("Chunks must be at least 8x8 and capacity positive");
+        }
+        this.seed = seed;
+        this.chunkWidth = chunkWidth;
+        this.chunkHeight = chunkHeight;
+        this.total = total;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Returns the tile at a world position, generating its chunk if needed.
+     *
+     * @param x The x-coordinate.
+     * @param y The y-coordinate.
+     * @return The tile.
+     */
+    public TETile get(int x, int y) {
+        TileGrid chunk = chunk(Math.floorDiv(x, chunkWidth), Math.floorDiv(y, chunkHeight));
+        return chunk.get(Math.floorMod(x, chunkWidth), Math.floorMod(y, chunkHeight));
+    }
+
+    /**
+     * Replaces the tile at a world position, generating its chunk if needed. The change
+     * lasts as long as the chunk is kept.
+     *
+     * @param x    The x-coordinate.
+     * @param y    The y-coordinate.
+     * @param tile The new tile, which must be in the Tileset palette.
+     */
+    public void set(int x, int y, TETile tile) {
+        TileGrid chunk = chunk(Math.floorDiv(x, chunkWidth), Math.floorDiv(y, chunkHeight));
+        chunk.set(Math.floorMod(x, chunkWidth), Math.floorMod(y, chunkHeight), tile);
+    }
+
+    /**
+     * Copies the tiles of a rectangle of the world into an array the size of the rectangle,
+     * with world position (left, bottom) going to into[0][0].
+     *
+     * @param into   The array to fill.
+     * @param left   The x-coordinate of the left column of the rectangle.
+     * @param bottom The y-coordinate of the bottom row of the rectangle.
+     */
+    public void copyRegion(TETile[][] into, int left, int bottom) {
+        int width = into.length;
+        int height = into[0].length;
+        for (int i = 0; i < width; ) {
+            int x = left + i;
+            int cx = Math.floorDiv(x, chunkWidth);
+            int columns = Math.min(width - i, chunkWidth - Math.floorMod(x, chunkWidth));
+            for (int j = 0; j < height; ) {
+                int y = bottom + j;
+                int cy = Math.floorDiv(y, chunkHeight);
+                int rows = Math.min(height - j, chunkHeight - Math.floorMod(y, chunkHeight));
+                TileGrid chunk = chunk(cx, cy);
+                int lx = Math.floorMod(x, chunkWidth);
+                int ly = Math.floorMod(y, chunkHeight);
+                for (int a = 0; a < columns; a++) {
+                    TETile[] column = into[i + a];
+                    for (int b = 0; b < rows; b++) {
+                        column[j + b] = chunk.get(lx + a, ly + b);
+                    }
+                }
+                j += rows;
+            }
+            i += columns;
+        }
+    }
+
+    /**
+     * Finds where the avatar starts: the avatar position Placement picks in chunk (0, 0).
+     *
+     * @param coords The array to store the start's world coordinates.
+     */
+    public void start(int[] coords) {
+        TETile[][] tiles = chunk(0, 0).toTiles();
+        Placement.find(tiles, coords, new int[2]);
+    }
+
+    /**
+     * Returns the number of chunks kept right now.
+     *
+     * @return The number of chunks in memory.
+     */
+    public int loadedChunks() {
+        return chunks.size();
+    }
+
+    /**
+     * Returns the number of times a chunk has been generated, including chunks generated
+     * again after being dropped.
+     *
+     * @return The number of chunks generated.
+     */
+    public long generatedChunks() {
+        return generated;
+    }
+
+    /**
+     * Returns a chunk, generating it if it is not kept, and drops the least recently used
+     * chunk if that leaves too many.
+     */
+    private TileGrid chunk(int cx, int cy) {
+        long key = (long) cx << 32 | (cy & 0xFFFFFFFFL);
+        TileGrid chunk = chunks.get(key);
+        if (chunk != null) {
+            return chunk;
+        }
+        chunk = generate(cx, cy);
+        chunks.put(key, chunk);
+        if (chunks.size() > capacity) {
+            Iterator<Map.Entry<Long, TileGrid>> eldest = chunks.entrySet().iterator();
+            eldest.next();
+            eldest.remove();
+        }
+        return chunk;
+    }
+
+    /**
+     * Generates a chunk from its own seed with the fast generator, joins its pockets of
+     * floor and carves hallways to its four connectors.
+     */
+    private TileGrid generate(int cx, int cy) {
+        generated++;
+        TETile[][] tiles = Room.generate(Rng.fast(mix(seed, cx, cy, 0)), chunkWidth, chunkHeight, total);
+        int[] labels = new int[chunkWidth * chunkHeight];
+        int[] cells = new int[chunkWidth * chunkHeight];
+        // Each hallway joins component 0 to another, until only one is left or none can be reached
+        while (label(tiles, labels) > 1) {
+            int count = 0;
+            for (int cell = 0; cell < labels.length; cell++) {
+                if (labels[cell] == 0) {
+                    cells[count++] = cell;
+                }
+            }
+            if (!carve(tiles, cells, count, labels, 0)) {
+                break;
+            }
+        }
+        carve(tiles, labels, 0, connector(cx - 1, cy, VERTICAL, chunkHeight));
+        carve(tiles, labels, chunkWidth - 1, connector(cx, cy, VERTICAL, chunkHeight));
+        carve(tiles, labels, connector(cx, cy - 1, HORIZONTAL, chunkWidth), 0);
+        carve(tiles, labels, connector(cx, cy, HORIZONTAL, chunkWidth), chunkHeight - 1);
+        return TileGrid.fromTiles(tiles);
+    }
+
+    /**
+     * Returns the offset along the border of the connector on the right (VERTICAL) or top
+     * (HORIZONTAL) side of chunk (cx, cy), keeping it away from the corners.
+     */
+    private int connector(int cx, int cy, int side, int length) {
+        long hash = mix(seed, cx, cy, side);
+        return 2 + (int) Math.floorMod(hash, (long) (length - 4));
+    }
+
+    /**
+     * Labels the connected pieces of floor of a chunk 0, 1, 2 and so on, and everything
+     * else -1, with cells numbered x * height + y.
+     *
+     * @return The number of pieces.
+     */
+    private static int label(TETile[][] tiles, int[] labels) {
+        int height = tiles[0].length;
+        Arrays.fill(labels, -1);
+        int[] queue = new int[labels.length];
+        int pieces = 0;
+        for (int first = 0; first < labels.length; first++) {
+            if (labels[first] >= 0 || tiles[first / height][first % height] != Tileset.MY_FLOOR) {
+                continue;
+            }
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = first;
+            labels[first] = pieces;
+            while (head < tail) {
+                int cell = queue[head++];
+                for (int d = 0; d < DX.length; d++) {
+                    int nx = cell / height + DX[d];
+                    int ny = cell % height + DY[d];
+                    if (nx < 0 || nx >= tiles.length || ny < 0 || ny >= height) {
+                        continue;
+                    }
+                    int next = nx * height + ny;
+                    if (labels[next] < 0 && tiles[nx][ny] == Tileset.MY_FLOOR) {
+                        labels[next] = pieces;
+                        queue[tail++] = next;
+                    }
+                }
+            }
+            pieces++;
+        }
+        return pieces;
+    }
+
+    /**
+     * Carves a hallway from the border tile (x, y) to the nearest floor of the chunk.
+     */
+    private static void carve(TETile[][] tiles, int[] labels, int x, int y) {
+        int start = x * tiles[0].length + y;
+        carve(tiles, new int[]{start}, 1, labels, labels[start]);
+    }
+
+    /**
+     * Carves a hallway from any of the source cells to the nearest floor labelled other than
+     * own along a cheapest path, turning the path into floor and the empty tiles around it
+     * into wall. A step onto an empty tile costs 1 and a step through anything else, like
+     * the wall of a room, costs more than any path over empty tiles, so the hallway goes
+     * around rooms and breaks through a wall only where it enters the room it leads to,
+     * unless there is no other way.
+     *
+     * @return true if a hallway was carved, false if no such floor can be reached.
+     */
+    private static boolean carve(TETile[][] tiles, int[] sources, int count, int[] labels, int own) {
+        int width = tiles.length;
+        int height = tiles[0].length;
+        int wallCost = width * height;
+        int[] from = new int[width * height];
+        Arrays.fill(from, -1);
+        long[] cost = new long[width * height];
+        Arrays.fill(cost, Long.MAX_VALUE);
+        // Entries are the cost in the high bits and the cell in the low 32 bits
+        PriorityQueue<Long> queue = new PriorityQueue<>();
+        for (int i = 0; i < count; i++) {
+            from[sources[i]] = sources[i];
+            cost[sources[i]] = 0;
+            queue.add((long) sources[i]);
+        }
+        int found = -1;
+        while (!queue.isEmpty()) {
+            long entry = queue.poll();
+            int cell = (int) entry;
+            if (entry >>> 32 > cost[cell]) {
+                continue;
+            }
+            int cellX = cell / height;
+            int cellY = cell % height;
+            if (cost[cell] > 0 && tiles[cellX][cellY] == Tileset.MY_FLOOR && labels[cell] != own) {
+                found = cell;
+                break;
+            }
+            for (int d = 0; d < DX.length; d++) {
+                int nx = cellX + DX[d];
+                int ny = cellY + DY[d];
+                // Stay off the border, so hallways only touch it at the connectors
+                if (nx < 1 || nx >= width - 1 || ny < 1 || ny >= height - 1) {
+                    continue;
+                }
+                TETile tile = tiles[nx][ny];
+                int step = tile == Tileset.MY_NOTHING || tile == Tileset.MY_FLOOR ? 1 : wallCost;
+                int next = nx * height + ny;
+                long nextCost = cost[cell] + step;
+                if (nextCost < cost[next]) {
+                    cost[next] = nextCost;
+                    from[next] = cell;
+                    queue.add(nextCost << 32 | next);
+                }
+            }
+        }
+        if (found < 0) {
+            return false;
+        }
+        for (int cell = from[found]; ; cell = from[cell]) {
+            int cellX = cell / height;
+            int cellY = cell % height;
+            tiles[cellX][cellY] = Tileset.MY_FLOOR;
+            for (int i = Math.max(cellX - 1, 0); i <= Math.min(cellX + 1, width - 1); i++) {
+                for (int j = Math.max(cellY - 1, 0); j <= Math.min(cellY + 1, height - 1); j++) {
+                    if (tiles[i][j] == Tileset.MY_NOTHING) {
+                        tiles[i][j] = Tileset.MY_WALL;
+                    }
+                }
+            }
+            if (cost[cell] == 0) {
+                break;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Mixes the world seed with a chunk position and a purpose into a new seed, using the
+     * SplitMix64 finalizer so that neighbouring chunks get unrelated seeds.
+     */
+    private static long mix(long seed, int cx, int cy, int purpose) {
+        long z = seed + GOLDEN * (1 + purpose);
+        z ^= (long) cx * 0xBF58476D1CE4E5B9L;
+        z = Long.rotateLeft(z, 31) + (long) cy * 0x94D049BB133111EBL;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
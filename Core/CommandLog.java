@@ -0,0 +1,405 @@
+package byow.Core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.util.zip.CRC32C;
+
+/**
+ * The record of a saved game: its commands, typed instead of kept as the keys that were
+ * pressed. NewGame with its seed, Move with its direction, Save and Quit. Each command is
+ * one byte, with the command in the high four bits and, for a Move, the direction in the
+ * low ones, except that NewGame is followed by its seed in eight more bytes. Reading the
+ * seed or the moves back takes no parsing.
+ *
+ * Commands are recorded into a ring of bytes allocated once, and the ring is written to the
+ * file in one batch when it fills up or the game is saved, so recording a move is a store
+ * into an array. Until the first save the log goes to a temporary file next to the saved
+ * log, which is then renamed over it, so starting a new game never touches the saved one.
+ * The temporary file of a game that is never saved is deleted when the log is closed, or
+ * when the JVM exits.
+ *
+ * The file has a header with a magic number, the format version, a random id given to the
+ * log when its game started, the number of bytes of commands up to the last Save, a
+ * checksum of those bytes and a checksum of the header. A save writes the new commands and
+ * forces them to the disk before it rewrites the header, so the header never counts bytes
+ * that are not there. A WorldSnapshot names the log and the length it was taken at by the
+ * same id and length. Commands after the last Save are not part of the saved game; replay
+ * ignores them and opening the log to continue the game drops them. Throws
+ * IllegalArgumentException in case of problems, like Utils, including a saved log that is
+ * damaged.
+ */
+class CommandLog {
+    static final int NEW_GAME = 1;
+    static final int MOVE = 2;
+    static final int SAVE = 3;
+    static final int QUIT = 4;
+
+    private static final int MAGIC = 0x50494B43;
+    private static final int VERSION = 3;
+    private static final int HEADER_SIZE = 32;
+    private static final int TYPE_SHIFT = 4;
+    private static final int ARGUMENT_MASK = (1 << TYPE_SHIFT) - 1;
+    // The directions a Move can have, by their number in the low bits of its byte
+    private static final String DIRECTIONS = "wasd";
+    private static final int READ_SIZE = 8192;
+
+    /**
+     * Receives the commands of a log as they are read back.
+     */
+    interface Visitor {
+        void newGame(long seed);
+
+        void move(char direction);
+
+        void save();
+
+        void quit();
+    }
+
+    private final File file;
+    private final byte[] ring;
+    private final int mask;
+    private final ByteBuffer batch;
+    private final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    // Checksum of every byte written to the file so far
+    private final CRC32C crc = new CRC32C();
+    private FileChannel channel;
+    private boolean temporary;
+    private final long id;
+    // Bytes recorded, bytes written to the file and bytes up to the last Save
+    private long recorded;
+    private long written;
+    private long saved;
+
+    private CommandLog(File file, int capacity, boolean temporary, long id) {
+        if (Integer.bitCount(capacity) != 1 || capacity < Long.BYTES + 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two above 8: " + capacity);
+        }
+        this.file = file;
+        this.id = id;
+        this.ring = new byte[capacity];
+        this.mask = capacity - 1;
+        this.batch = ByteBuffer.allocate(capacity);
+        this.temporary = temporary;
+    }
+
+    /**
+     * Starts the log of a new game, with a new id, which replaces the log at file once the
+     * game is saved. Nothing is written until the ring fills up or the game is saved.
+     *
+     * @param file     The saved log file.
+     * @param capacity The number of bytes the ring holds, a power of two.
+     * @return The log.
+     */
+    static CommandLog create(File file, int capacity) {
+        return new CommandLog(file, capacity, true, new SecureRandom().nextLong());
+    }
+
+    /**
+     * Opens the saved log to replay or continue its game, after checking its header and
+     * the checksum of its saved commands, and drops the commands after the last Save.
+     *
+     * @param file     The saved log file.
+     * @param capacity The number of bytes the ring holds, a power of two.
+     * @return The log, or null if there is no file.
+     */
+    static CommandLog open(File file, int capacity) {
+        if (!file.exists()) {
+            return null;
+        }
+        ByteBuffer fields = ByteBuffer.allocate(HEADER_SIZE);
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            while (fields.hasRemaining() && channel.read(fields) > 0) {
+                continue;
+            }
+            fields.flip();
+            if (fields.remaining() < HEADER_SIZE || fields.getInt() != MAGIC || fields.getInt() != VERSION
+                    || fields.getInt(HEADER_SIZE - 4) != checksum(fields.array())) {
+                throw new IllegalArgumentException("not a valid command log: " + file);
+            }
+            long id = fields.getLong();
+            long saved = fields.getLong();
+            int sum = fields.getInt();
+            if (saved < 0 || HEADER_SIZE + saved > channel.size()) {
+                throw new IllegalArgumentException("command log is shorter than its header says: " + file);
+            }
+            CommandLog log = new CommandLog(file, capacity, false, id);
+            ByteBuffer buffer = ByteBuffer.allocate(READ_SIZE);
+            for (long position = HEADER_SIZE; position < HEADER_SIZE + saved; ) {
+                buffer.clear().limit((int) Math.min(READ_SIZE, HEADER_SIZE + saved - position));
+                int n = channel.read(buffer, position);
+                if (n <= 0) {
+                    throw new IllegalArgumentException("command log is shorter than its header says: " + file);
+                }
+                log.crc.update(buffer.array(), 0, n);
+                position += n;
+            }
+            if ((int) log.crc.getValue() != sum) {
+                throw new IllegalArgumentException("command log is damaged: " + file);
+            }
+            channel.truncate(HEADER_SIZE + saved);
+            log.channel = channel;
+            log.recorded = saved;
+            log.written = saved;
+            log.saved = saved;
+            return log;
+        } catch (IOException excp) {
+            closeQuietly(channel);
+            throw new IllegalArgumentException(excp.getMessage());
+        } catch (IllegalArgumentException excp) {
+            closeQuietly(channel);
+            throw excp;
+        }
+    }
+
+    /**
+     * Records the start of a game.
+     *
+     * @param seed The seed of the world.
+     */
+    void newGame(long seed) {
+        record(NEW_GAME << TYPE_SHIFT);
+        for (int shift = Long.SIZE - Byte.SIZE; shift >= 0; shift -= Byte.SIZE) {
+            record((int) (seed >>> shift));
+        }
+    }
+
+    /**
+     * Records a move.
+     *
+     * @param direction One of 'w', 'a', 's' or 'd'.
+     */
+    void move(char direction) {
+        int index = DIRECTIONS.indexOf(direction);
+        if (index < 0) {
+            throw new IllegalArgumentException("not a direction: " + direction);
+        }
+        record(MOVE << TYPE_SHIFT | index);
+    }
+
+    /**
+     * Records a save and writes every command recorded so far, making them part of the
+     * saved game. The commands are forced to the disk before the header that counts them
+     * is written, and the first save then renames the temporary file over the saved log.
+     */
+    void save() {
+        record(SAVE << TYPE_SHIFT);
+        spill();
+        try {
+            channel.force(false);
+            saved = recorded;
+            writeHeader();
+            channel.force(true);
+            if (temporary) {
+                channel.close();
+                Files.move(temporary().toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+                channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+                temporary = false;
+            }
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+    }
+
+    /**
+     * Records the end of the game and closes the log. Commands since the last Save are not
+     * part of the saved game, so they are not written.
+     */
+    void quit() {
+        record(QUIT << TYPE_SHIFT);
+        close();
+    }
+
+    /**
+     * Closes the file, without writing the commands recorded since the last write. The
+     * temporary file of a game that was never saved is deleted.
+     */
+    void close() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException excp) {
+                throw new IllegalArgumentException(excp.getMessage());
+            }
+            channel = null;
+        }
+        if (temporary) {
+            temporary().delete();
+        }
+    }
+
+    /**
+     * Returns the number of bytes recorded: one for every command and eight more for the
+     * seed of every NewGame.
+     *
+     * @return The length of the log.
+     */
+    long length() {
+        return recorded;
+    }
+
+    /**
+     * Returns the random id the log was given when its game started.
+     *
+     * @return The id.
+     */
+    long id() {
+        return id;
+    }
+
+    /**
+     * Reads the saved commands back, from the given length of the log up to and including
+     * the last Save, in a few large reads. Commands recorded since the last Save are not
+     * read.
+     *
+     * @param from    The length of the log to start at, such as 0 or the length a snapshot
+     *                was taken at, which must not be inside a NewGame.
+     * @param visitor The visitor to give the commands to.
+     */
+    void replay(long from, Visitor visitor) {
+        if (from < 0 || from > saved) {
+            throw new IllegalArgumentException("outside of the saved commands: " + from);
+        }
+        if (channel == null || from == saved) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(READ_SIZE);
+        long position = HEADER_SIZE + from;
+        long end = HEADER_SIZE + saved;
+        // Bytes of a seed still to read, and the seed read so far
+        int seedBytes = 0;
+        long seed = 0;
+        try {
+            while (position < end) {
+                buffer.clear().limit((int) Math.min(READ_SIZE, end - position));
+                int n = channel.read(buffer, position);
+                if (n <= 0) {
+                    throw new IllegalArgumentException("command log is shorter than its header says: " + file);
+                }
+                position += n;
+                byte[] bytes = buffer.array();
+                for (int i = 0; i < n; i++) {
+                    int command = bytes[i] & 0xFF;
+                    if (seedBytes > 0) {
+                        seed = seed << Byte.SIZE | command;
+                        if (--seedBytes == 0) {
+                            visitor.newGame(seed);
+                        }
+                        continue;
+                    }
+                    switch (command >>> TYPE_SHIFT) {
+                        case NEW_GAME:
+                            seedBytes = Long.BYTES;
+                            seed = 0;
+                            break;
+                        case MOVE:
+                            if ((command & ARGUMENT_MASK) >= DIRECTIONS.length()) {
+                                throw new IllegalArgumentException("not a valid command log: " + file);
+                            }
+                            visitor.move(DIRECTIONS.charAt(command & ARGUMENT_MASK));
+                            break;
+                        case SAVE:
+                            visitor.save();
+                            break;
+                        case QUIT:
+                            visitor.quit();
+                            break;
+                        default:
+                            throw new IllegalArgumentException("not a valid command log: " + file);
+                    }
+                }
+            }
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+        if (seedBytes > 0) {
+            throw new IllegalArgumentException("not a valid command log: " + file);
+        }
+    }
+
+    /**
+     * Adds a byte to the ring, writing the ring out first if it is full.
+     */
+    private void record(int command) {
+        if (recorded - written == ring.length) {
+            spill();
+        }
+        ring[(int) recorded & mask] = (byte) command;
+        recorded++;
+    }
+
+    /**
+     * Writes the bytes recorded since the last write to the end of the file in one batch.
+     */
+    private void spill() {
+        if (recorded == written) {
+            return;
+        }
+        batch.clear();
+        int start = (int) written & mask;
+        int count = (int) (recorded - written);
+        int first = Math.min(count, ring.length - start);
+        batch.put(ring, start, first).put(ring, 0, count - first);
+        batch.flip();
+        try {
+            if (channel == null) {
+                channel = FileChannel.open(temporary().toPath(), StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                temporary().deleteOnExit();
+                writeHeader();
+            }
+            long position = HEADER_SIZE + written;
+            while (batch.hasRemaining()) {
+                position += channel.write(batch, position);
+            }
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+        crc.update(batch.array(), 0, count);
+        written = recorded;
+    }
+
+    /**
+     * Writes the header, counting the bytes up to the last Save. It is only written when
+     * every byte written so far is saved, so the running checksum covers exactly those.
+     */
+    private void writeHeader() throws IOException {
+        header.clear();
+        header.putInt(MAGIC).putInt(VERSION).putLong(id).putLong(saved).putInt((int) crc.getValue());
+        header.putInt(checksum(header.array()));
+        header.flip();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+    }
+
+    private File temporary() {
+        return new File(file.getPath() + ".tmp");
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException excp) {
+            // The log is already being given up on
+        }
+    }
+
+    private static int checksum(byte[] header) {
+        CRC32C crc = new CRC32C();
+        crc.update(header, 0, HEADER_SIZE - 4);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,136 @@
+package byow.Core;
+
+import byow.TileEngine.TETile;
+import byow.TileEngine.Tileset;
+
+import java.util.Arrays;
+
+/**
+ * The number of moves from every tile of a world to its exit, found with one breadth-first
+ * search from the exit over the tiles the avatar can walk on: floors, the avatar's own tile
+ * and the exit. After that, whether a tile can reach the exit, how many moves it takes and
+ * which move to make next are all answered from the stored distances in constant time.
+ *
+ * Only the avatar moves during a game and it only moves onto walkable tiles, so the field
+ * stays correct for the whole game once it has been computed for a new world.
+ */
+public final class DistanceField {
+    private static final int UNREACHABLE = -1;
+    private static final char[] MOVES = {'w', 'a', 's', 'd'};
+    private static final int[] DX = {0, -1, 0, 1};
+    private static final int[] DY = {1, 0, -1, 0};
+
+    private final int width;
+    private final int height;
+    private final int[] steps;
+    private final int reachable;
+
+    private DistanceField(int width, int height, int[] steps, int reachable) {
+        this.width = width;
+        this.height = height;
+        this.steps = steps;
+        this.reachable = reachable;
+    }
+
+    /**
+     * Computes the distance of every tile of a world to its exit.
+     *
+     * @param world The world.
+     * @param exitX The x-coordinate of the exit.
+     * @param exitY The y-coordinate of the exit.
+     * @return The distances.
+     */
+    public static DistanceField toExit(TETile[][] world, int exitX, int exitY) {
+        int width = world.length;
+        int height = world[0].length;
+        int[] steps = new int[width * height];
+        Arrays.fill(steps, UNREACHABLE);
+        int[] queue = new int[width * height];
+        int head = 0;
+        int tail = 0;
+        steps[exitX * height + exitY] = 0;
+        queue[tail++] = exitX * height + exitY;
+        while (head < tail) {
+            int cell = queue[head++];
+            int x = cell / height;
+            int y = cell % height;
+            for (int d = 0; d < DX.length; d++) {
+                int nx = x + DX[d];
+                int ny = y + DY[d];
+                if (nx < 0 || nx >= width || ny < 0 || ny >= height) {
+                    continue;
+                }
+                int next = nx * height + ny;
+                if (steps[next] == UNREACHABLE && walkable(world[nx][ny])) {
+                    steps[next] = steps[cell] + 1;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return new DistanceField(width, height, steps, tail);
+    }
+
+    /**
+     * Returns true if the avatar can walk onto the tile.
+     *
+     * @param tile The tile.
+     * @return true for floors, the avatar and the exit.
+     */
+    static boolean walkable(TETile tile) {
+        return tile == Tileset.MY_FLOOR || tile == Tileset.MY_AVATAR || tile == Tileset.LOCKED_DOOR;
+    }
+
+    /**
+     * Returns true if the exit can be reached from the tile.
+     *
+     * @param x The x-coordinate of the tile.
+     * @param y The y-coordinate of the tile.
+     * @return true if there is a path to the exit.
+     */
+    public boolean reachable(int x, int y) {
+        return steps(x, y) != UNREACHABLE;
+    }
+
+    /**
+     * Returns the number of moves from the tile to the exit.
+     *
+     * @param x The x-coordinate of the tile.
+     * @param y The y-coordinate of the tile.
+     * @return The number of moves, or -1 if the exit cannot be reached or the tile is outside the world.
+     */
+    public int steps(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            return UNREACHABLE;
+        }
+        return steps[x * height + y];
+    }
+
+    /**
+     * Returns the move that takes the avatar one step closer to the exit from the tile.
+     *
+     * @param x The x-coordinate of the tile.
+     * @param y The y-coordinate of the tile.
+     * @return One of 'w', 'a', 's' or 'd', or 0 if the tile is the exit or cannot reach it.
+     */
+    public char next(int x, int y) {
+        int here = steps(x, y);
+        if (here <= 0) {
+            return 0;
+        }
+        for (int d = 0; d < DX.length; d++) {
+            if (steps(x + DX[d], y + DY[d]) == here - 1) {
+                return MOVES[d];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the number of tiles, the exit included, from which the exit can be reached.
+     *
+     * @return The number of reachable tiles.
+     */
+    public int reachableCount() {
+        return reachable;
+    }
+}
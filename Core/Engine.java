@@ -1,12 +1,20 @@
 package byow.Core;
 
+import byow.InputDemo.InputSource;
+import byow.InputDemo.KeyboardInputSource;
+import byow.InputDemo.StringInputDevice;
+import byow.InputDemo.TerminalInputSource;
+import byow.TileEngine.AnsiRenderer;
+import byow.TileEngine.Camera;
+import byow.TileEngine.HudOverlay;
+import byow.TileEngine.Java2DRenderer;
 import byow.TileEngine.TERenderer;
 import byow.TileEngine.TETile;
+import byow.TileEngine.TileGrid;
 import byow.TileEngine.Tileset;
 import edu.princeton.cs.algs4.StdDraw;
 import java.io.File;
-import java.io.IOException;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.awt.Color;
 import java.awt.Font;
 import java.time.format.DateTimeFormatter;
@@ -16,13 +24,17 @@ import static java.lang.Character.*;
 
 public class Engine {
     // Renderer for displaying the game world
-    private static TERenderer ter = new TERenderer();
+    // Frames are composed off-screen and drawn with one blit; run with -Dbyow.renderer=stddraw
+    // to draw every tile through StdDraw instead
+    private static TERenderer ter = "stddraw".equals(System.getProperty("byow.renderer"))
+            ? new TERenderer() : new Java2DRenderer();
+    // Renderer for playing in the terminal instead of a window, or null when playing in a window
+    private static AnsiRenderer ANSI;
 
     // The game world represented as a 2D grid of tiles
     private static TETile[][] TETILE;
     public static final int WIDTH = 90;
     public static final int HEIGHT = 50;
-    private static final int TWOHUNDRED = 200;
     private static final int TWOHUNDREDFIFTY = 250;
     private static final int FOURTY = 40;
     private static final int THREE = 3;
@@ -30,70 +42,264 @@ public class Engine {
     private static final int FOUR = 4;
     private static final int SIX = 6;
     private static final int TEN = 10;
-    private static final int FIFTY = 50;
+    private static final int THIRTY = 30;
     private static final int MAXIMUM = 5000000;
+    private static final int THOUSAND = 1000;
 
     // File and boolean variables for game state
     private static final File CWD = new File(System.getProperty("user.dir"));
+    private static final File SNAPSHOT = join(CWD, "saved.snapshot");
+    private static final File COMMANDLOG = join(CWD, "saved.commands");
+    // Saves of older versions, read only to move them to a command log
     private static final File SAVED = join(CWD, "saved.txt");
-    private static boolean MENUSCREEN;
-    private static boolean N;
-    private static boolean COLON;
-    private static boolean WIN;
+    private static final File JOURNAL = join(CWD, "saved.journal");
+    // Bytes of commands recorded in memory before they are written to the command log in one batch
+    private static final int COMMANDBATCH = 4096;
+    // Set -Dbyow.replayLoad=true to load by replaying every saved command and check the snapshot against it
+    private static final boolean REPLAYLOAD = Boolean.getBoolean("byow.replayLoad");
+    // Replay options: -Dbyow.replaySpeed=2 plays twice as fast as the default 4 moves per second (0.25 at least),
+    // -Dbyow.replayEvery=N draws only every Nth move and -Dbyow.replayFrom=M starts after move M
+    private static final double REPLAYSPEED =
+            Math.max(0.25, Double.parseDouble(System.getProperty("byow.replaySpeed", "1")));
+    private static final int REPLAYEVERY = Math.max(1, Integer.getInteger("byow.replayEvery", 1));
+    private static final int REPLAYFROM = Math.max(0, Integer.getInteger("byow.replayFrom", 0));
+    private static final int REPLAYINTERVAL = 1024;
+
+    // Fonts, the HUD time format and the HUD overlay, shared by every frame
+    private static final Font TITLEFONT = new Font("Arial", Font.BOLD, FOURTY);
+    private static final Font TEXTFONT = new Font("Arial", Font.PLAIN, TWENTY);
+    private static final DateTimeFormatter TIMEFORMAT = DateTimeFormatter.ofPattern("HH:mm:ss yyyy/MM/dd");
+    private static final HudOverlay HUD = new HudOverlay(WIDTH, 2, TEXTFONT, Color.WHITE, 1, TEN, THIRTY);
+
+    // Generated worlds, kept in up to -Dbyow.worldCacheBytes of memory (16 MB by default) and,
+    // if -Dbyow.worldCacheDir is set, in that directory once evicted from memory
+    private static final WorldCache WORLDS = new WorldCache(Long.getLong("byow.worldCacheBytes", 16 << 20),
+            System.getProperty("byow.worldCacheDir") == null ? null : new File(System.getProperty("byow.worldCacheDir")));
+
+    // Game loop: -Dbyow.tickRate sets the ticks per second, -Dbyow.maxFps the most frames per second,
+    // and -Dbyow.frameStats=true prints tick and frame time statistics on quit
+    private static final GameLoop LOOP = new GameLoop(Integer.getInteger("byow.tickRate", 60),
+            Integer.getInteger("byow.maxFps", 60));
+    private static final boolean FRAMESTATS = Boolean.getBoolean("byow.frameStats");
+
+    // Camera following the avatar: the view scrolls once the avatar is closer than -Dbyow.deadzoneX
+    // tiles to its left or right edge or -Dbyow.deadzoneY tiles to its top or bottom edge
+    private static final Camera CAMERA = new Camera(WIDTH, HEIGHT,
+            Integer.getInteger("byow.deadzoneX", WIDTH / FOUR), Integer.getInteger("byow.deadzoneY", HEIGHT / FOUR));
+    // Run with -Dbyow.chunked=true to explore an endless ChunkedWorld instead of one window-sized world.
+    // Such a world has no exit and is not saved; TETILE then holds the part of it the camera sees.
+    private static final boolean CHUNKED = Boolean.getBoolean("byow.chunked");
     private static boolean iSTRING;
     private static boolean FINISHED;
 
-    // Seed and input variables
-    private static String SEED;
-    private static String INPUT;
+    // The game: menu, seed, world and moves. Engine draws it, saves it and loads it, and
+    // TETILE is kept a copy of its world, or of the part of an endless world in view.
+    private static GameSession SESSION;
 
+    // Keys typed on the keyboard, and the last batch taken from it with the next key to press
+    private static InputSource KEYBOARD;
+    private static final char[] KEYS = new char[64];
+    private static int KEYCOUNT;
+    private static int KEYNEXT;
 
-    // Lists to store playable character and door coordinates
-    private static ArrayList<Integer> playableCHARACTER;
-    private static ArrayList<Integer> EXIT;
+    // What the menu and the HUD showed when they were last drawn, and whether the world must be redrawn
+    private static String MENUSTATE;
+    private static int HUDX;
+    private static int HUDY;
+    private static long HUDSECOND;
+    private static boolean REDRAW;
+
+    // Log of this game's commands, which is what a save keeps, or null for an endless world
+    private static CommandLog COMMANDS;
+
+    // Moves from every tile to the exit, computed once per world
+    private static DistanceField DISTANCES;
 
     // Constructor initializes game state variables
     public Engine() {
-        COLON = false;
-        WIN = false;
         iSTRING = false;
         FINISHED = false;
-        MENUSCREEN = true;
-        N = false;
-        SEED = "";
-        INPUT = "";
+        SESSION = new GameSession(WORLDS, WIDTH, HEIGHT, CHUNKED);
+        useCommands(null);
         TETILE = new TETile[WIDTH][HEIGHT];
-        playableCHARACTER = new ArrayList<Integer>();
-        EXIT = new ArrayList<Integer>();
+        DISTANCES = null;
     }
     /**
      * Method used for exploring a fresh world. This method should handle all inputs,
      * including inputs from the main menu.
      */
     public static void interactWithKeyboard() {
+        if (KEYBOARD == null) {
+            KEYBOARD = new KeyboardInputSource();
+        }
         ter.initialize(WIDTH, HEIGHT);
-        while (true) {
-            if (StdDraw.hasNextKeyTyped()) {
-                char keys = toLowerCase(StdDraw.nextKeyTyped());
-                pressKeys(keys);
+        MENUSTATE = null;
+        LOOP.run(Engine::menuTick, Engine::menuFrame);
+        ter.invalidateAll();
+        ter.setOverlay(HUD, 0, HEIGHT - 2);
+        aimCamera();
+        REDRAW = true;
+        LOOP.run(Engine::gameTick, Engine::gameFrame);
+    }
+
+    /**
+     * Method used for exploring a fresh world in the terminal instead of a window, with keys
+     * read from standard input. The same game loop runs, and each frame only sends the tiles
+     * that changed through AnsiRenderer.renderChanges, with the distance to the exit on the
+     * line below the world. There is no mouse, so nothing is hovered.
+     */
+    public static void interactWithTerminal() {
+        TerminalInputSource.rawMode();
+        KEYBOARD = new TerminalInputSource(System.in);
+        ANSI = AnsiRenderer.standardOutput();
+        MENUSTATE = null;
+        LOOP.run(Engine::menuTick, Engine::menuFrame);
+        ANSI.invalidateAll();
+        aimCamera();
+        REDRAW = true;
+        LOOP.run(Engine::gameTick, Engine::terminalFrame);
+    }
+
+    /**
+     * Method to press the keys typed on the menu since the last tick.
+     *
+     * @return true while the menu is still shown.
+     */
+    private static boolean menuTick() {
+        char k;
+        while (!SESSION.started() && (k = nextTypedKey()) != InputSource.NO_KEY) {
+            pressKeys(toLowerCase(k));
+        }
+        return !SESSION.started();
+    }
+
+    /**
+     * Method to take the next key typed on the keyboard. Every key waiting in the keyboard's
+     * queue is taken in one batch once the previous batch has been pressed, and keys left in
+     * a batch when the menu closes are pressed in the game.
+     *
+     * @return The key, or InputSource.NO_KEY if no key is waiting.
+     */
+    private static char nextTypedKey() {
+        if (KEYNEXT == KEYCOUNT) {
+            KEYCOUNT = KEYBOARD.drainKeys(KEYS);
+            KEYNEXT = 0;
+            if (KEYCOUNT == 0) {
+                return InputSource.NO_KEY;
             }
+        }
+        return KEYS[KEYNEXT++];
+    }
+
+    /**
+     * Method to draw the menu if it changed since it was last drawn.
+     *
+     * @return true if the menu was drawn.
+     */
+    private static boolean menuFrame() {
+        String state = SESSION.seeding() ? "seed " + seedText() : "menu";
+        if (state.equals(MENUSTATE)) {
+            return false;
+        }
+        if (ANSI != null) {
+            terminalMenu();
+        } else {
             generateMenu();
-            if (!MENUSCREEN) {
-                break;
-            }
         }
+        MENUSTATE = state;
+        return true;
+    }
 
-        while (true) {
-            if (StdDraw.hasNextKeyTyped()) {
-                char keys = toLowerCase(StdDraw.nextKeyTyped());
-                pressKeys(keys);
-            }
-            ter.renderFrame(TETILE);
-            hudScreen();
-            if (WIN) {
-                displayWin();
-            }
+    /**
+     * Method to press the keys typed in the game since the last tick.
+     *
+     * @return true, the game runs until the player quits.
+     */
+    private static boolean gameTick() {
+        char k;
+        while ((k = nextTypedKey()) != InputSource.NO_KEY) {
+            pressKeys(toLowerCase(k));
+            REDRAW = true;
         }
+        return true;
+    }
+
+    /**
+     * Method to draw the world and the HUD if a key was pressed or the HUD text changed,
+     * which is only checked when the mouse moved to another tile or the clock moved to
+     * another second since the last frame.
+     *
+     * @return true if a frame was drawn.
+     */
+    private static boolean gameFrame() {
+        int mouseX = (int) StdDraw.mouseX();
+        int mouseY = (int) StdDraw.mouseY();
+        long second = System.currentTimeMillis() / THOUSAND;
+        boolean changed = REDRAW || SESSION.won();
+        if (changed || mouseX != HUDX || mouseY != HUDY || second != HUDSECOND) {
+            changed |= hudScreen(mouseX, mouseY, second != HUDSECOND);
+            HUDX = mouseX;
+            HUDY = mouseY;
+            HUDSECOND = second;
+        }
+        if (!changed) {
+            return false;
+        }
+        REDRAW = false;
+
+        if (SESSION.chunks() != null) {
+            // TETILE already holds the view, moved along with the avatar
+            ter.renderChanges(TETILE);
+        } else {
+            CAMERA.follow(SESSION.avatarX(), SESSION.avatarY());
+            ter.renderView(TETILE, CAMERA);
+        }
+        if (SESSION.won()) {
+            displayWin();
+            ter.invalidateAll();
+        }
+        return true;
+    }
+
+    /**
+     * Method to draw the world in the terminal if a key was pressed since the last frame,
+     * sending only the tiles that changed, and the distance to the exit below it. The world
+     * is as big as the window, and an endless world's TETILE holds the view, so TETILE is
+     * drawn whole.
+     *
+     * @return true if a frame was drawn.
+     */
+    private static boolean terminalFrame() {
+        if (!REDRAW) {
+            return false;
+        }
+        REDRAW = false;
+        ANSI.renderChanges(TETILE);
+        String status = SESSION.won() ? "CONGRATS! YOU WIN!" : exitHint();
+        // Below the world, clearing what the last status left
+        System.out.print("\033[" + (HEIGHT + 1) + ";1H\033[K" + status + "   (:q saves and quits)");
+        System.out.flush();
+        return true;
+    }
+
+    /**
+     * Method to quit the game, closing the command log, which deletes the temporary log of
+     * a game that was not saved, and printing the game loop statistics first if
+     * -Dbyow.frameStats=true was given.
+     */
+    private static void quit() {
+        if (COMMANDS != null) {
+            COMMANDS.quit();
+            COMMANDS = null;
+        }
+        if (ANSI != null) {
+            // Leave the terminal's prompt below the status line
+            System.out.println();
+        }
+        if (FRAMESTATS) {
+            System.out.println(LOOP);
+        }
+        System.exit(0);
     }
 
     /**
@@ -121,11 +327,13 @@ public class Engine {
         
         iSTRING = true;
         if (remainingInput.charAt(0) == 'l') {
-            String saved = readContentsAsString(SAVED);
-            String newer = saved + remainingInput.substring(1);
-            return interactWithInputString(newer);
+            loadSavedGame();
+            processInput(new StringInputDevice(remainingInput.substring(1)));
+        } else {
+            processInput(new StringInputDevice(remainingInput));
         }
-        processInput(remainingInput);
+        // The input is over, so a game that was not saved leaves no temporary log behind
+        useCommands(null);
         return TETILE;
     }
 
@@ -140,23 +348,26 @@ public class Engine {
     }
 
     /**
-     * Method to process input recursively. Presses keys based on the remaining input string.
+     * Method to process input one character at a time. Presses keys based on the input,
+     * taking one key at a time from the source so that long inputs take linear time and no stack.
+     * Stops early if a key press finishes the input, such as loading a saved game.
      *
-     * @param remainingInput The remaining input string to be processed.
+     * @param input The input to be processed.
      */
-    private static void processInput(String remainingInput) {
-        if (FINISHED) {
-            return;
-        }
+    private static void processInput(InputSource input) {
+        pressAll(input);
+        FINISHED = true;
+    }
 
-        char curr = remainingInput.charAt(0);
-        curr = toLowerCase(curr);
-        pressKeys(curr);
-        String restOfInput = remainingInput.substring(1);
-        if (restOfInput.length() == 0) {
-            FINISHED = true;
+    /**
+     * Method to press every key of the input in order, without marking the input as finished.
+     *
+     * @param input The keys to be pressed.
+     */
+    private static void pressAll(InputSource input) {
+        while (!FINISHED && input.possibleNextInput()) {
+            pressKeys(toLowerCase(input.getNextKey()));
         }
-        processInput(restOfInput);
     }
 
     /**
@@ -166,46 +377,97 @@ public class Engine {
         StdDraw.clear(StdDraw.BLACK);
         StdDraw.setPenColor(StdDraw.WHITE);
 
-        StdDraw.setFont(new Font("Arial", Font.BOLD, FOURTY));
-        StdDraw.text(WIDTH / 2, HEIGHT * 2 / THREE, "PIKA RUN");
-
-        StdDraw.setFont(new Font("Arial", Font.PLAIN, TWENTY));
-        StdDraw.text(WIDTH / 2, HEIGHT / 2, "New Game (N)");
-        StdDraw.text(WIDTH / 2, HEIGHT / 2 - 2, "Load Game (L)");
-        StdDraw.text(WIDTH / 2, HEIGHT / 2 - FOUR, "Replay Game (R)");
-        StdDraw.text(WIDTH / 2, HEIGHT / 2 - SIX, "Quit (Q)");
-
-        if (N) {
-            StdDraw.clear(StdDraw.BLACK);
-            StdDraw.setPenColor(StdDraw.WHITE);
-            StdDraw.setFont(new Font("Arial", Font.PLAIN, TWENTY));
-            StdDraw.text(WIDTH / 2, HEIGHT / 2, "Seed: " + SEED);
+        if (SESSION.seeding()) {
+            StdDraw.setFont(TEXTFONT);
+            StdDraw.text(WIDTH / 2, HEIGHT / 2, "Seed: " + seedText());
             StdDraw.text(WIDTH / 2, HEIGHT / 2 + 2, "(Press a series of number and S to start the game)");
+        } else {
+            StdDraw.setFont(TITLEFONT);
+            StdDraw.text(WIDTH / 2, HEIGHT * 2 / THREE, "PIKA RUN");
+
+            StdDraw.setFont(TEXTFONT);
+            StdDraw.text(WIDTH / 2, HEIGHT / 2, "New Game (N)");
+            StdDraw.text(WIDTH / 2, HEIGHT / 2 - 2, "Load Game (L)");
+            StdDraw.text(WIDTH / 2, HEIGHT / 2 - FOUR, "Replay Game (R)");
+            StdDraw.text(WIDTH / 2, HEIGHT / 2 - SIX, "Quit (Q)");
         }
 
         StdDraw.show();
     }
 
     /**
-     * Method to display the HUD (Heads-Up Display) screen.
+     * Method to show the main menu in the terminal, clearing the screen first.
      */
-    private static void hudScreen() {
-        int width = (int) StdDraw.mouseX();
-        int height = (int) StdDraw.mouseY();
-        String type = TETILE[width][height].description();
-        Font wording = new Font("Arial", Font.PLAIN, TWENTY);
+    private static void terminalMenu() {
+        StringBuilder menu = new StringBuilder("\033[2J\033[H");
+        if (SESSION.seeding()) {
+            menu.append("Seed: ").append(seedText()).append('\n');
+            menu.append("(Press a series of number and S to start the game)\n");
+        } else {
+            menu.append("PIKA RUN\n\n");
+            menu.append("New Game (N)\nLoad Game (L)\nReplay Game (R)\nQuit (Q)\n");
+        }
+        System.out.print(menu);
+        System.out.flush();
+    }
 
-        StdDraw.setFont(wording);
-        StdDraw.setPenColor(Color.WHITE);
-        StdDraw.textLeft(1, HEIGHT - 1, type);
+    /**
+     * Method to update the HUD (Heads-Up Display) overlay with the tile under the mouse
+     * and the time. The time is only formatted when a new second starts, and the overlay
+     * is only rendered again when one of its texts changes.
+     *
+     * @param mouseX    The x-coordinate of the tile under the mouse.
+     * @param mouseY    The y-coordinate of the tile under the mouse.
+     * @param newSecond Whether the clock moved to another second since the last update.
+     * @return true if the HUD text changed.
+     */
+    private static boolean hudScreen(int mouseX, int mouseY, boolean newSecond) {
+        String hovered;
+        if (SESSION.chunks() != null) {
+            boolean inside = mouseX >= 0 && mouseX < WIDTH && mouseY >= 0 && mouseY < HEIGHT;
+            hovered = inside ? TETILE[mouseX][mouseY].description() : "";
+        } else {
+            int x = CAMERA.toWorldX(mouseX);
+            int y = CAMERA.toWorldY(mouseY);
+            boolean inside = x >= 0 && x < TETILE.length && y >= 0 && y < TETILE[0].length;
+            hovered = inside ? TETILE[x][y].description() : "";
+        }
+        boolean changed = HUD.setText(0, hovered);
+        changed |= HUD.setText(2, exitHint());
+        if (newSecond) {
+            changed |= HUD.setText(1, TIMEFORMAT.format(LocalDateTime.now()));
+        }
+        return changed;
+    }
 
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm:ss yyyy/MM/dd");
-        LocalDateTime time1 = LocalDateTime.now();
-        String time = formatter.format(time1);
-        StdDraw.textLeft(TEN, HEIGHT - 1, time);
+    /**
+     * Method to update the HUD with the mouse on every tile of the window and one tile beyond
+     * each edge, with the camera aimed as it is when the game is drawn, without drawing
+     * anything. Lets the headless Soak check the HUD's lookups after a game.
+     */
+    static void hoverAll() {
+        aimCamera();
+        for (int x = -1; x <= WIDTH; x++) {
+            for (int y = -1; y <= HEIGHT; y++) {
+                hudScreen(x, y, false);
+            }
+        }
+    }
 
-        StdDraw.show();
-        StdDraw.pause(FIFTY);
+    /**
+     * Method to describe how far the avatar is from the exit, for the HUD.
+     *
+     * @return The number of moves left, or a note that the exit cannot be reached.
+     */
+    private static String exitHint() {
+        if (DISTANCES == null) {
+            return "";
+        }
+        int steps = DISTANCES.steps(SESSION.avatarX(), SESSION.avatarY());
+        if (steps < 0) {
+            return "Exit unreachable";
+        }
+        return "Exit: " + steps + (steps == 1 ? " move" : " moves");
     }
 
     /**
@@ -215,283 +477,333 @@ public class Engine {
         StdDraw.clear(StdDraw.BLACK);
         StdDraw.setPenColor(StdDraw.WHITE);
 
-        StdDraw.setFont(new Font("Arial", Font.BOLD, FOURTY));
+        StdDraw.setFont(TITLEFONT);
         StdDraw.text(WIDTH / 2, HEIGHT / 2, "CONGRATS! YOU WIN!");
         StdDraw.show();
         StdDraw.pause(MAXIMUM);
     }
 
     /**
-     * Method to process user input characters and execute corresponding actions.
+     * Method to return the seed typed on the menu, for the menu screen.
+     *
+     * @return The seed, or nothing if no digit has been typed.
+     */
+    private static String seedText() {
+        return SESSION.digits() > 0 ? Long.toString(SESSION.seed()) : "";
+    }
+
+    /**
+     * Method to process user input characters and execute corresponding actions. The
+     * session plays the key; Engine then loads or replays a saved game for "l" and "r" on
+     * the menu, copies what the key changed into TETILE, logs moves, and saves and quits
+     * when the session ends.
      *
      * @param k The character representing the user's input.
      */
     private static void pressKeys(char k) {
-        if (MENUSCREEN) {
-            switch (k) {
-                case 'n':
-                    N = true;
-                    INPUT = INPUT + k;
-                    break;
-                case 's':
-                    createWorld();
-                    INPUT = INPUT + k;
-                    break;
-                case 'l':
-                    loadGame();
-                    break;
-                case 'r':
-                    replayGame();
-                    break;
-                case 'q':
-                    System.exit(0);
-                    break;
-                default:
-                    if (Character.isDigit(k)) {
-                        SEED = SEED + k;
-                    }
-                    INPUT = INPUT + k;
-                    break;
-            }
-        } else {
-
-            switch (k) {
-                case 'w':
-                case 's':
-                case 'a':
-                case 'd':
-                    movements(k);
-                    INPUT = INPUT + k;
-                    break;
-                case ':':
-                    COLON = true;
-                    break;
-                case 'q':
-                    if (COLON) {
-                        saveGame();
-                        if (!(iSTRING && !FINISHED)) {
-                            System.exit(0);
-                        }
-                    }
-                    break;
-                default:
-                    throw new IllegalStateException("Unexpected value: " + k);
-            }
+        if (!SESSION.started() && k == 'l') {
+            loadSavedGame();
+            return;
+        }
+        if (!SESSION.started() && k == 'r') {
+            replayGame();
+            return;
+        }
+        switch (SESSION.press(k)) {
+            case GameSession.STARTED:
+                showWorld();
+                // An endless world is not saved, so it needs no log
+                if (SESSION.chunks() == null) {
+                    useCommands(CommandLog.create(COMMANDLOG, COMMANDBATCH));
+                    COMMANDS.newGame(SESSION.seed());
+                }
+                break;
+            case GameSession.MOVED:
+                showMove();
+                if (COMMANDS != null) {
+                    COMMANDS.move(k);
+                }
+                break;
+            case GameSession.CLOSED:
+                if (SESSION.started() && SESSION.chunks() == null) {
+                    saveGame();
+                }
+                if (!(iSTRING && !FINISHED)) {
+                    quit();
+                }
+                break;
+            default:
+                break;
         }
     }
 
     /**
-     * Method to create the game world based on the provided seed.
+     * Method to copy the world of a game that just started into TETILE, and find the
+     * distances to its exit. An endless world has no exit, and only the part of it in
+     * view is copied.
      */
-    private static void createWorld() {
-        if (N) {
-            long l = Long.parseLong(SEED);
-            Room newRoom = new Room(l, WIDTH, HEIGHT);
-            newRoom.emptyBoard(TETILE);
-            newRoom.drawWorld(TETILE, TWOHUNDRED);
-            setup();
-            MENUSCREEN = false;
-        } else {
-            System.exit(0);
+    private static void showWorld() {
+        if (SESSION.chunks() != null) {
+            DISTANCES = null;
+            aimCamera();
+            return;
         }
+        SESSION.grid().copyInto(TETILE);
+        DISTANCES = DistanceField.toExit(TETILE, SESSION.exitX(), SESSION.exitY());
     }
 
     /**
-     * Method to generate a list of floor coordinates in the game world.
-     *
-     * @return A list of floor coordinates in the game world.
-     */
-    private static ArrayList<ArrayList<Integer>> floors() {
-        ArrayList<ArrayList<Integer>> floors1 = new ArrayList();
-
-        for (int i = 0; i < WIDTH; i++) {
-            for (int j = 0; j < HEIGHT; j++) {
-                if (TETILE[i][j].equals(Tileset.MY_FLOOR)) {
-                    ArrayList<Integer> latestFloor = new ArrayList<>();
-                    latestFloor.add(i);
-                    latestFloor.add(j);
-                    floors1.add(latestFloor);
-                }
-            }
+     * Method to copy the tiles the last move changed into TETILE. In an endless world the
+     * camera moves along with the avatar and the whole view is copied.
+     */
+    private static void showMove() {
+        if (SESSION.chunks() != null) {
+            CAMERA.follow(SESSION.avatarX(), SESSION.avatarY());
+            SESSION.chunks().copyRegion(TETILE, CAMERA.left(), CAMERA.bottom());
+            return;
+        }
+        for (int i = 0; i < SESSION.changedCount(); i++) {
+            int x = SESSION.changedX(i);
+            int y = SESSION.changedY(i);
+            TETILE[x][y] = SESSION.tile(x, y);
         }
-        return floors1;
     }
 
     /**
-     * Method to set up the initial playable character and exit positions in the game world.
+     * Method to save the game state. Every command since the last save is written to the
+     * command log, which the first save of a new game renames over the saved log, and a
+     * snapshot of the world is taken at the log's new length.
      */
-    private static void setup() {
-        ArrayList<ArrayList<Integer>> floors = floors();
-        int[] playerCoords = new int[2];
-        int[] gateCoords = new int[2];
-        findFarthestPoints(floors, playerCoords, gateCoords);
+    private static void saveGame() {
+        COMMANDS.save();
+        int[] avatar = {SESSION.avatarX(), SESSION.avatarY()};
+        int[] exit = {SESSION.exitX(), SESSION.exitY()};
+        WorldSnapshot.write(SNAPSHOT, SESSION.seed(), COMMANDS.id(), COMMANDS.length(), TETILE, avatar, exit);
+    }
 
-        playableCHARACTER.add(playerCoords[0]);
-        playableCHARACTER.add(playerCoords[1]);
-        TETILE[playerCoords[0]][playerCoords[1]] = Tileset.MY_AVATAR;
 
-        adjustGateLocation(gateCoords);
-        TETILE[gateCoords[0]][gateCoords[1]] = Tileset.LOCKED_DOOR;
-        EXIT.add(gateCoords[0]);
-        EXIT.add(gateCoords[1]);
+    /**
+     * Method to bring back the saved game. The world is restored from the snapshot taken at
+     * the last save, and only the commands logged after that snapshot are replayed. Without
+     * a usable snapshot, or with -Dbyow.replayLoad=true, the world is regenerated and every
+     * saved command is replayed instead, and the snapshot is checked against the result.
+     * The game then keeps logging to the saved log.
+     */
+    private static void loadSavedGame() {
+        CommandLog log = openSavedLog();
+        // A saved game is never endless
+        SESSION = new GameSession(WORLDS, WIDTH, HEIGHT);
+        WorldSnapshot snapshot = WorldSnapshot.read(SNAPSHOT);
+        long from = 0;
+        if (!REPLAYLOAD && restoreSnapshot(snapshot, log)) {
+            from = snapshot.commands();
+        }
+        useCommands(null);
+        log.replay(from, new LoadedGame());
+        if (REPLAYLOAD) {
+            verifySnapshot(snapshot, log);
+        }
+        useCommands(log);
     }
 
     /**
-     * Method to find the farthest points for the playable character and exit.
+     * Method to restore the world from a snapshot taken of the saved command log.
      *
-     * @param points The list of floor coordinates in the game world.
-     * @param player The array to store the playable character's coordinates.
-     * @param gate   The array to store the exit's coordinates.
-     */
-    private static void findFarthestPoints(ArrayList<ArrayList<Integer>> points, int[] player, int[] gate) {
-        double maxDistance = 0;
-        for (ArrayList<Integer> p1 : points) {
-            for (ArrayList<Integer> p2 : points) {
-                double distance = Math.sqrt(Math.pow(p1.get(0) - p2.get(0), 2) + Math.pow(p1.get(1) - p2.get(1), 2));
-                if (distance > maxDistance) {
-                    maxDistance = distance;
-                    player[0] = p1.get(0);
-                    player[1] = p1.get(1);
-                    gate[0] = p2.get(0);
-                    gate[1] = p2.get(1);
-                }
-            }
+     * @param snapshot The snapshot, or null if there is none.
+     * @param log      The saved command log.
+     * @return true if the game was restored, false if the snapshot cannot be used.
+     */
+    private static boolean restoreSnapshot(WorldSnapshot snapshot, CommandLog log) {
+        if (snapshot == null || snapshot.logId() != log.id()
+                || snapshot.commands() < 0 || snapshot.commands() > log.length()
+                || snapshot.grid().width() != WIDTH || snapshot.grid().height() != HEIGHT) {
+            return false;
         }
+        SESSION.restore(snapshot.grid(), snapshot.seed(), snapshot.avatar(), snapshot.exit());
+        showWorld();
+        return true;
     }
 
     /**
-     * Method to adjust the exit's location to be adjacent to a floor tile.
+     * Method to check that a snapshot matches the game replayed from the whole command log.
+     * Snapshots that belong to another log, or were taken at an earlier save, are skipped.
      *
-     * @param coords The exit's coordinates to be adjusted.
+     * @param snapshot The snapshot, or null if there is none.
+     * @param log      The saved command log.
      */
-    private static void adjustGateLocation(int[] coords) {
-        int gateWidth = coords[0];
-        int gateHeight = coords[1];
-
-        if (TETILE[gateWidth - 1][gateHeight].equals(Tileset.MY_FLOOR)) {
-            gateWidth += 1;
-        } else if (TETILE[gateWidth + 1][gateHeight].equals(Tileset.MY_FLOOR)) {
-            gateWidth -= 1;
-        } else if (TETILE[gateWidth][gateHeight - 1].equals(Tileset.MY_FLOOR)) {
-            gateHeight += 1;
-        } else if (TETILE[gateWidth][gateHeight + 1].equals(Tileset.MY_FLOOR)) {
-            gateHeight -= 1;
+    private static void verifySnapshot(WorldSnapshot snapshot, CommandLog log) {
+        if (snapshot == null || snapshot.logId() != log.id() || snapshot.commands() != log.length()) {
+            return;
+        }
+        int[] avatar = snapshot.avatar();
+        int[] exit = snapshot.exit();
+        if (!Arrays.equals(TileGrid.fromTiles(TETILE).ids(), snapshot.grid().ids())
+                || avatar[0] != SESSION.avatarX() || avatar[1] != SESSION.avatarY()
+                || exit[0] != SESSION.exitX() || exit[1] != SESSION.exitY()) {
+            throw new IllegalStateException("Saved snapshot does not match the replayed game");
         }
-        coords[0] = gateWidth;
-        coords[1] = gateHeight;
     }
 
     /**
-     * Method to save the game state to a file.
+     * Method to open the saved command log, which fails if the log is damaged. Only when
+     * there is no command log at all, a game saved by an older version, as the keys typed
+     * in it in saved.journal or saved.txt, is moved to a new command log first: the digits
+     * typed before the first "s" are the seed and every key after it is a move.
+     *
+     * @return The saved command log.
      */
-    private static void saveGame() {
-        SAVED.delete();
-        try {
-            SAVED.createNewFile();
-        } catch (IOException e) {
-            e.printStackTrace();
+    private static CommandLog openSavedLog() {
+        if (COMMANDLOG.exists()) {
+            return CommandLog.open(COMMANDLOG, COMMANDBATCH);
+        }
+        String keys = JOURNAL.isFile() ? SaveJournal.read(JOURNAL) : readContentsAsString(SAVED);
+        int start = keys.indexOf('s') + 1;
+        if (start == 0) {
+            throw new IllegalArgumentException("no game was started in the saved keys");
         }
-        writeContents(SAVED, INPUT);
+        StringBuilder seed = new StringBuilder();
+        for (int i = 0; i < start; i++) {
+            if (Character.isDigit(keys.charAt(i))) {
+                seed.append(keys.charAt(i));
+            }
+        }
+        CommandLog log = CommandLog.create(COMMANDLOG, COMMANDBATCH);
+        log.newGame(Long.parseLong(seed.toString()));
+        for (int i = start; i < keys.length(); i++) {
+            log.move(keys.charAt(i));
+        }
+        log.save();
+        return log;
     }
 
     /**
-     * Method to load a saved game state from a file.
+     * Method to replay a saved game state, in the window or in the terminal, and then keep
+     * playing it from where the replay ends.
      */
-    private static void loadGame() {
-        String userInput = readContentsAsString(SAVED);
-        interactWithInputString(userInput);
+    private static void replayGame() {
+        CommandLog log = openSavedLog();
+        SavedMoves saved = new SavedMoves();
+        log.replay(0, saved);
+        SESSION = new GameSession(WORLDS, WIDTH, HEIGHT);
+        SESSION.start(saved.seed);
+        showWorld();
+
+        Replay replay = new Replay(TETILE, SESSION.avatarX(), SESSION.avatarY(),
+                SESSION.exitX(), SESSION.exitY(), saved.moves, REPLAYINTERVAL);
+        replay.seek(Math.min(REPLAYFROM, replay.length()));
+        aimCamera();
+        if (ANSI != null) {
+            ANSI.invalidateAll();
+            ANSI.renderChanges(TETILE);
+        } else {
+            ter.invalidateAll();
+            ter.renderView(TETILE, CAMERA);
+        }
+        long delay = (long) (TWOHUNDREDFIFTY / REPLAYSPEED);
+        while (replay.next()) {
+            if (replay.step() % REPLAYEVERY != 0 && replay.step() != replay.length()) {
+                continue;
+            }
+            if (ANSI != null) {
+                ANSI.renderChanges(TETILE);
+            } else {
+                CAMERA.follow(replay.avatarX(), replay.avatarY());
+                ter.renderView(TETILE, CAMERA);
+            }
+            if (delay > 0) {
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+        // Keep playing the replayed world, and logging to the saved game
+        int[] avatar = {replay.avatarX(), replay.avatarY()};
+        int[] exit = {SESSION.exitX(), SESSION.exitY()};
+        SESSION.restore(TileGrid.fromTiles(TETILE), saved.seed, avatar, exit);
+        useCommands(log);
     }
 
     /**
-     * Method to handle player movements in the game world.
+     * Method to switch to another command log, closing the one in use.
      *
-     * @param characterChoice The character representing the chosen movement direction.
+     * @param log The new command log, or null for none.
      */
-    private static void movements(char characterChoice) {
-        int position1 = playableCHARACTER.get(0);
-        int position2 = playableCHARACTER.get(1);
-        int next1 = position1, next2 = position2;
-
-        switch (characterChoice) {
-            case 'w':
-                next2 += 1;
-                break;
-            case 's':
-                next2 -= 1;
-                break;
-            case 'd':
-                next1 += 1;
-                break;
-            case 'a':
-                next1 -= 1;
-                break;
-            default:
-                throw new IllegalStateException("Unexpected value: " + characterChoice);
+    private static void useCommands(CommandLog log) {
+        if (COMMANDS != null) {
+            COMMANDS.close();
         }
+        COMMANDS = log;
+    }
 
-        if (TETILE[next1][next2].equals(Tileset.MY_FLOOR)
-                || TETILE[next1][next2].equals(Tileset.LOCKED_DOOR)) {
+    /**
+     * The seed and moves of a saved game, read from its command log.
+     */
+    private static final class SavedMoves implements CommandLog.Visitor {
+        private long seed;
+        private final StringBuilder moves = new StringBuilder();
+
+        @Override
+        public void newGame(long newSeed) {
+            seed = newSeed;
+            moves.setLength(0);
+        }
 
-            TETILE[position1][position2] = Tileset.MY_FLOOR;
+        @Override
+        public void move(char direction) {
+            moves.append(direction);
+        }
 
-            if (TETILE[next1][next2].equals(Tileset.LOCKED_DOOR)) {
-                WIN = true;
-            }
+        @Override
+        public void save() {
+        }
 
-            TETILE[next1][next2] = Tileset.MY_AVATAR;
-            updateCharacter(next1, next2);
+        @Override
+        public void quit() {
         }
     }
 
     /**
-     * Method to replay a saved game state.
+     * Plays the commands of a saved game on the session as they are read from its command log.
      */
-    private static void replayGame() {
-        String replayMovements = readContentsAsString(SAVED);
-        String emptyString = "";
-        for (int i = 0; i < replayMovements.length(); i++) {
-            char latestPos = replayMovements.charAt(0);
-            emptyString += latestPos;
-            replayMovements = replayMovements.substring(1);
-            if (latestPos == 's') {
-                break;
-            }
+    private static final class LoadedGame implements CommandLog.Visitor {
+        @Override
+        public void newGame(long seed) {
+            SESSION.start(seed);
+            showWorld();
         }
-        INPUT = emptyString;
-        N = true;
-        SEED = emptyString.substring(1, emptyString.length() - 1);
-        createWorld();
-
-        ter.renderFrame(TETILE);
-        while (replayMovements.length() != 0) {
-            char latestPos = replayMovements.charAt(0);
-
-            int width = playableCHARACTER.get(0);
-            int height = playableCHARACTER.get(1);
 
-            pressKeys(latestPos);
-            ter.renderFrame(TETILE);
-            try {
-                Thread.sleep(TWOHUNDREDFIFTY);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
+        @Override
+        public void move(char direction) {
+            if (SESSION.press(direction) == GameSession.MOVED) {
+                showMove();
             }
+        }
 
-            replayMovements = replayMovements.substring(1);
+        @Override
+        public void save() {
+        }
+
+        @Override
+        public void quit() {
         }
-        interactWithKeyboard();
     }
 
     /**
-     * Method to update the playable character's position.
-     *
-     * @param x The new x-coordinate of the playable character.
-     * @param y The new y-coordinate of the playable character.
+     * Method to keep the camera inside the world and center it on the avatar. A world no
+     * bigger than the window is always shown whole. An endless world has no bounds, and
+     * the view is copied into TETILE.
      */
-    private static void updateCharacter(int x, int y) {
-        playableCHARACTER = new ArrayList<Integer>();
-        playableCHARACTER.add(x);
-        playableCHARACTER.add(y);
+    private static void aimCamera() {
+        if (SESSION.chunks() != null) {
+            CAMERA.clearBounds();
+            CAMERA.centerOn(SESSION.avatarX(), SESSION.avatarY());
+            SESSION.chunks().copyRegion(TETILE, CAMERA.left(), CAMERA.bottom());
+            return;
+        }
+        CAMERA.setBounds(TETILE.length, TETILE[0].length);
+        CAMERA.centerOn(SESSION.avatarX(), SESSION.avatarY());
     }
 
 
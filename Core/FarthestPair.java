@@ -0,0 +1,143 @@
+package byow.Core;
+
+/**
+ * Finds the two points of a grid that are farthest apart from each other.
+ * Only points on the convex hull can be the endpoints of the farthest pair, so
+ * instead of comparing every point with every other point we keep the lowest and
+ * highest point of every column, build the convex hull of those, and only compare
+ * hull vertices with each other.
+ */
+public final class FarthestPair {
+
+    private FarthestPair() {
+    }
+
+    /**
+     * Finds the farthest pair of points among the first n entries of xs and ys.
+     * The points must be distinct and sorted by x and then by y, which is the order
+     * a column-by-column scan of the world produces. When several pairs share the
+     * maximum distance, the pair chosen is the one an all-pairs scan in that order
+     * would find first, so placements stay the same for every seed.
+     * If there are fewer than two points, first and second are left untouched.
+     *
+     * @param xs     The x-coordinates of the points.
+     * @param ys     The y-coordinates of the points.
+     * @param n      The number of points to consider.
+     * @param first  The array to store the first point of the pair.
+     * @param second The array to store the second point of the pair.
+     */
+    public static void find(int[] xs, int[] ys, int n, int[] first, int[] second) {
+        if (n < 2) {
+            return;
+        }
+        int[] hullX = new int[2 * n];
+        int[] hullY = new int[2 * n];
+        int h = hull(xs, ys, n, hullX, hullY);
+
+        long maxDistance = 0;
+        for (int i = 0; i < h; i++) {
+            for (int j = i + 1; j < h; j++) {
+                long distance = distanceSquared(hullX[i], hullY[i], hullX[j], hullY[j]);
+                if (distance > maxDistance) {
+                    maxDistance = distance;
+                }
+            }
+        }
+
+        int bestFirst = -1;
+        int bestSecond = -1;
+        for (int i = 0; i < h; i++) {
+            if (bestFirst != -1 && !before(hullX, hullY, i, bestFirst)) {
+                continue;
+            }
+            int partner = -1;
+            for (int j = 0; j < h; j++) {
+                if (distanceSquared(hullX[i], hullY[i], hullX[j], hullY[j]) == maxDistance
+                        && (partner == -1 || before(hullX, hullY, j, partner))) {
+                    partner = j;
+                }
+            }
+            if (partner != -1) {
+                bestFirst = i;
+                bestSecond = partner;
+            }
+        }
+
+        first[0] = hullX[bestFirst];
+        first[1] = hullY[bestFirst];
+        second[0] = hullX[bestSecond];
+        second[1] = hullY[bestSecond];
+    }
+
+    /**
+     * Builds the convex hull of the lowest and highest point of every column using
+     * Andrew's monotone chain. Collinear points are dropped since they can never be
+     * the endpoint of a farthest pair.
+     *
+     * @param xs    The x-coordinates of the sorted points.
+     * @param ys    The y-coordinates of the sorted points.
+     * @param n     The number of points.
+     * @param hullX The array to store the x-coordinates of the hull vertices.
+     * @param hullY The array to store the y-coordinates of the hull vertices.
+     * @return The number of hull vertices.
+     */
+    private static int hull(int[] xs, int[] ys, int n, int[] hullX, int[] hullY) {
+        int[] candX = new int[n];
+        int[] candY = new int[n];
+        int m = 0;
+        for (int i = 0; i < n; i++) {
+            boolean lowest = i == 0 || xs[i - 1] != xs[i];
+            boolean highest = i == n - 1 || xs[i + 1] != xs[i];
+            if (lowest || highest) {
+                candX[m] = xs[i];
+                candY[m] = ys[i];
+                m++;
+            }
+        }
+
+        int h = 0;
+        for (int i = 0; i < m; i++) {
+            while (h >= 2 && cross(hullX, hullY, h - 2, h - 1, candX[i], candY[i]) <= 0) {
+                h--;
+            }
+            hullX[h] = candX[i];
+            hullY[h] = candY[i];
+            h++;
+        }
+        int lower = h + 1;
+        for (int i = m - 2; i >= 0; i--) {
+            while (h >= lower && cross(hullX, hullY, h - 2, h - 1, candX[i], candY[i]) <= 0) {
+                h--;
+            }
+            hullX[h] = candX[i];
+            hullY[h] = candY[i];
+            h++;
+        }
+        // The last vertex repeats the first one, unless every point is the same.
+        return h > 1 ? h - 1 : h;
+    }
+
+    /**
+     * Returns the cross product of the vectors a->b and a->c.
+     */
+    private static long cross(int[] hullX, int[] hullY, int a, int b, int cx, int cy) {
+        return (long) (hullX[b] - hullX[a]) * (cy - hullY[a])
+                - (long) (hullY[b] - hullY[a]) * (cx - hullX[a]);
+    }
+
+    /**
+     * Returns the squared Euclidean distance between (x1, y1) and (x2, y2).
+     */
+    private static long distanceSquared(int x1, int y1, int x2, int y2) {
+        long dx = x1 - x2;
+        long dy = y1 - y2;
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * Returns true if hull vertex a comes before hull vertex b in scan order.
+     */
+    private static boolean before(int[] hullX, int[] hullY, int a, int b) {
+        return hullX[a] < hullX[b] || (hullX[a] == hullX[b] && hullY[a] < hullY[b]);
+    }
+}
@@ -0,0 +1,73 @@
+package byow.Core;
+
+/**
+ * The fast generator, SplitMix64 as in SplittableRandom but with the steps inlined: one add,
+ * two xor-shift-multiplies and a final xor-shift per draw, with no shared state. Bounded
+ * integers are taken with Lemire's multiply and shift, which only needs a division for the
+ * rare draw that would be biased, instead of a remainder for every draw. Split gives
+ * independent generators for other threads, each with its own odd gamma, the way
+ * SplittableRandom does.
+ */
+final class FastRng implements Rng {
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    private long seed;
+    private final long gamma;
+
+    FastRng(long seed) {
+        this(seed, GOLDEN_GAMMA);
+    }
+
+    private FastRng(long seed, long gamma) {
+        this.seed = seed;
+        this.gamma = gamma;
+    }
+
+    @Override
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("bound must be positive: " + bound);
+        }
+        long product = (nextLong() >>> 32) * bound;
+        int low = (int) product;
+        if (Integer.compareUnsigned(low, bound) < 0) {
+            // Draws whose low half falls below 2^32 mod bound would make some results likelier
+            int threshold = Integer.remainderUnsigned(-bound, bound);
+            while (Integer.compareUnsigned(low, threshold) < 0) {
+                product = (nextLong() >>> 32) * bound;
+                low = (int) product;
+            }
+        }
+        return (int) (product >>> 32);
+    }
+
+    @Override
+    public long nextLong() {
+        long z = seed += gamma;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    @Override
+    public double nextDouble() {
+        return (nextLong() >>> 11) * DOUBLE_UNIT;
+    }
+
+    @Override
+    public Rng split() {
+        return new FastRng(nextLong(), mixGamma(seed += gamma));
+    }
+
+    /**
+     * Turns a seed into a gamma for a split generator: odd, and with enough bit changes
+     * between neighbouring bits that its sequence does not look like a counter.
+     */
+    private static long mixGamma(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        z = (z ^ (z >>> 33)) | 1L;
+        return (Long.bitCount(z ^ (z >>> 1)) < 24) ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+    }
+}
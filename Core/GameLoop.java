@@ -0,0 +1,159 @@
+package byow.Core;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Runs a game at a fixed number of ticks per second and draws frames at no more than a
+ * given number per second, parking the thread until the next tick or frame is due instead
+ * of spinning. Ticks and frames are scheduled against absolute deadlines, so the time
+ * spent in them does not add up into drift. If ticks fall behind, at most MAX_CATCH_UP
+ * of them run back to back before the schedule is moved to the present.
+ *
+ * The loop keeps statistics on how long frames took to draw and how late ticks ran.
+ */
+public class GameLoop {
+    private static final long SECOND = 1_000_000_000L;
+    private static final int MAX_CATCH_UP = 5;
+
+    private final long tickNanos;
+    private final long frameNanos;
+
+    private long ticks;
+    private long frames;
+    private long totalFrameNanos;
+    private long maxFrameNanos;
+    private long totalLateNanos;
+    private long maxLateNanos;
+
+    /**
+     * Creates a loop.
+     *
+     * @param ticksPerSecond  The number of ticks to run per second.
+     * @param framesPerSecond The most frames to draw per second.
+     */
+    public GameLoop(int ticksPerSecond, int framesPerSecond) {
+        if (ticksPerSecond <= 0 || framesPerSecond <= 0) {
+            throw new IllegalArgumentException("rates must be positive: "
+                    + ticksPerSecond + " ticks, " + framesPerSecond + " frames");
+        }
+        tickNanos = SECOND / ticksPerSecond;
+        frameNanos = SECOND / framesPerSecond;
+    }
+
+    /**
+     * Runs ticks and frames until a tick returns false or the thread is interrupted.
+     * A frame is offered after the ticks that are due, at most once per frame interval.
+     *
+     * @param tick  Advances the game by one tick, returning false to stop the loop.
+     * @param frame Draws a frame if anything changed, returning true if it drew one.
+     */
+    public void run(BooleanSupplier tick, BooleanSupplier frame) {
+        long nextTick = System.nanoTime();
+        long nextFrame = nextTick;
+        while (!Thread.currentThread().isInterrupted()) {
+            long now = System.nanoTime();
+            for (int caughtUp = 0; now - nextTick >= 0; caughtUp++) {
+                if (caughtUp == MAX_CATCH_UP) {
+                    nextTick = now;
+                    break;
+                }
+                long late = now - nextTick;
+                totalLateNanos += late;
+                maxLateNanos = Math.max(maxLateNanos, late);
+                ticks++;
+                if (!tick.getAsBoolean()) {
+                    return;
+                }
+                nextTick += tickNanos;
+                now = System.nanoTime();
+            }
+            if (now - nextFrame >= 0) {
+                if (frame.getAsBoolean()) {
+                    long took = System.nanoTime() - now;
+                    frames++;
+                    totalFrameNanos += took;
+                    maxFrameNanos = Math.max(maxFrameNanos, took);
+                }
+                nextFrame = Math.max(nextFrame + frameNanos, now);
+            }
+            parkUntil(nextTick - nextFrame < 0 ? nextTick : nextFrame);
+        }
+    }
+
+    /**
+     * Returns the number of ticks run.
+     *
+     * @return The number of ticks.
+     */
+    public long ticks() {
+        return ticks;
+    }
+
+    /**
+     * Returns the number of frames drawn.
+     *
+     * @return The number of frames.
+     */
+    public long frames() {
+        return frames;
+    }
+
+    /**
+     * Returns the average time it took to draw a frame.
+     *
+     * @return The average frame time in nanoseconds, or 0 if no frame was drawn.
+     */
+    public long averageFrameNanos() {
+        return frames == 0 ? 0 : totalFrameNanos / frames;
+    }
+
+    /**
+     * Returns the longest time it took to draw a frame.
+     *
+     * @return The longest frame time in nanoseconds.
+     */
+    public long maxFrameNanos() {
+        return maxFrameNanos;
+    }
+
+    /**
+     * Returns how late ticks started on average, compared to their schedule.
+     *
+     * @return The average lateness in nanoseconds, or 0 if no tick was run.
+     */
+    public long averageLateNanos() {
+        return ticks == 0 ? 0 : totalLateNanos / ticks;
+    }
+
+    /**
+     * Returns how late the latest tick started, compared to its schedule.
+     *
+     * @return The largest lateness in nanoseconds.
+     */
+    public long maxLateNanos() {
+        return maxLateNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d ticks, late %.3f ms on average and %.3f ms at most; "
+                        + "%d frames, %.3f ms on average and %.3f ms at most",
+                ticks, averageLateNanos() / 1e6, maxLateNanos / 1e6,
+                frames, averageFrameNanos() / 1e6, maxFrameNanos / 1e6);
+    }
+
+    /**
+     * Parks the thread until the given System.nanoTime() deadline, parking again if it
+     * wakes up early.
+     */
+    private static void parkUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package byow.Core;
+
+import byow.InputDemo.InputSource;
+import byow.InputDemo.SocketInputSource;
+import byow.TileEngine.TETile;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A TCP server that hosts one GameSession per connection, all in one JVM and sharing one
+ * WorldCache. Each connection is served by its own thread, which reads keys through a
+ * SocketInputSource and writes with plain blocking writes. On a JVM with virtual threads
+ * (Java 21 and later) every connection gets a virtual thread, so idle sessions cost little
+ * more than their session and buffers. On older JVMs connections fall back to a pool of at
+ * most -Dbyow.serverThreads platform threads (1000 by default) with small stacks, since each
+ * one is an operating system thread: at most that many sessions play at once, and further
+ * connections are told the server is busy and closed, instead of waiting in a queue behind
+ * sessions that may never end. A session that sends no key for -Dbyow.serverIdleSeconds
+ * (300 by default, 0 for never) is closed, so idle clients cannot hold every thread.
+ *
+ * The server has no authentication, so it only listens on the loopback address unless it
+ * is given another address, like -Dbyow.serverAddress=0.0.0.0 for every interface.
+ *
+ * The protocol is plain text, so a game can be played with a tool like netcat. The server
+ * greets with "PIKA-RUN width height", then every byte received is pressed as a key, and
+ * line breaks and spaces are ignored. The server answers only with what changed:
+ *   WORLD seed      followed by the world, one line per row from the top, when a game starts
+ *   TILE x y c      a tile that changed to the character c after a move
+ *   WIN             once the avatar reaches the exit
+ *   BYE             when the session ends with "q" on the menu or ":q" in a game
+ *   IDLE            when the session is closed because no key arrived in time
+ *   BUSY            instead of the greeting, when every session is taken
+ * Replies are flushed once all the keys received together have been pressed.
+ */
+public class GameServer implements Closeable {
+    private static final int DEFAULT_PORT = 4242;
+    private static final int BUFFER_SIZE = 512;
+    // Connections the operating system may hold before the server accepts them
+    private static final int BACKLOG = 256;
+    private static final int DEFAULT_THREADS = 1000;
+    private static final int DEFAULT_IDLE_SECONDS = 300;
+    // Stack size of the platform threads used when virtual threads are not available
+    private static final long STACK_SIZE = 256 << 10;
+
+    private final ServerSocket socket;
+    private final WorldCache worlds;
+    private final ExecutorService connections;
+    private final boolean virtual;
+    private final int threads;
+    private final long idleMillis;
+    private final AtomicInteger sessions = new AtomicInteger();
+
+    /**
+     * Opens the server socket on the loopback address. Connections are accepted once serve
+     * is called.
+     *
+     * @param port   The port to listen on, or 0 for any free port.
+     * @param worlds The world cache shared by every session.
+     */
+    public GameServer(int port, WorldCache worlds) {
+        this(InetAddress.getLoopbackAddress(), port, worlds,
+                Integer.getInteger("byow.serverThreads", DEFAULT_THREADS),
+                Integer.getInteger("byow.serverIdleSeconds", DEFAULT_IDLE_SECONDS));
+    }
+
+    /**
+     * Opens the server socket. Connections are accepted once serve is called.
+     *
+     * @param address The address to listen on; anything but the loopback address lets
+     *                other machines play without authentication.
+     * @param port    The port to listen on, or 0 for any free port.
+     * @param worlds  The world cache shared by every session.
+     * @param threads The most sessions to play at once when there are no virtual threads.
+     * @param idleSeconds How long a session may go without a key before it is closed, or 0
+     *                    to keep it open as long as the client stays connected.
+     */
+    public GameServer(InetAddress address, int port, WorldCache worlds, int threads, int idleSeconds) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive: " + threads);
+        }
+        if (idleSeconds < 0) {
+            throw new IllegalArgumentException("idleSeconds must not be negative: " + idleSeconds);
+        }
+        try {
+            this.socket = new ServerSocket();
+            socket.bind(new InetSocketAddress(address, port), BACKLOG);
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+        this.worlds = worlds;
+        ExecutorService executor = virtualThreadExecutor();
+        this.virtual = executor != null;
+        this.threads = threads;
+        this.idleMillis = TimeUnit.SECONDS.toMillis(idleSeconds);
+        // A SynchronousQueue holds no tasks, so a connection is rejected when every thread is busy
+        this.connections = virtual ? executor : new ThreadPoolExecutor(threads, threads,
+                1, TimeUnit.MINUTES, new SynchronousQueue<>(), task -> {
+                    Thread thread = new Thread(null, task, "pika-session", STACK_SIZE);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        if (!virtual) {
+            ((ThreadPoolExecutor) connections).allowCoreThreadTimeOut(true);
+        }
+    }
+
+    /**
+     * Returns an executor that starts a virtual thread per task, looked up by reflection so
+     * that the game still builds and runs on JVMs without virtual threads.
+     *
+     * @return The executor, or null if virtual threads are not available.
+     */
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException excp) {
+            return null;
+        }
+    }
+
+    /**
+     * Accepts connections and starts a session for each until the server is closed.
+     */
+    public void serve() {
+        while (!socket.isClosed()) {
+            Socket connection;
+            try {
+                connection = socket.accept();
+            } catch (IOException excp) {
+                // Closing the server socket ends accept with an exception
+                break;
+            }
+            try {
+                connections.execute(() -> play(connection));
+            } catch (RejectedExecutionException excp) {
+                if (connections.isShutdown()) {
+                    // The server was closed after the connection was accepted
+                    closeQuietly(connection);
+                    break;
+                }
+                turnAway(connection);
+            }
+        }
+    }
+
+    /**
+     * Tells a connection that every session is taken, and closes it.
+     */
+    private static void turnAway(Socket connection) {
+        try (Socket s = connection) {
+            s.getOutputStream().write("BUSY\n".getBytes(StandardCharsets.UTF_8));
+        } catch (IOException excp) {
+            // The client is gone already
+        }
+    }
+
+    private static void closeQuietly(Socket connection) {
+        try {
+            connection.close();
+        } catch (IOException excp) {
+            // Nothing more can be done with it
+        }
+    }
+
+    /**
+     * Plays one session over a connection until the player quits or disconnects.
+     */
+    private void play(Socket connection) {
+        sessions.incrementAndGet();
+        try (Socket s = connection) {
+            s.setTcpNoDelay(true);
+            GameSession session = new GameSession(worlds, Engine.WIDTH, Engine.HEIGHT);
+            InputSource in = new SocketInputSource(s, BUFFER_SIZE);
+            Writer out = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(),
+                    StandardCharsets.UTF_8), BUFFER_SIZE);
+            out.write("PIKA-RUN " + session.width() + " " + session.height() + "\n");
+            out.flush();
+            char[] keys = new char[BUFFER_SIZE];
+            while (!session.closed()) {
+                int n = in.drainKeys(keys);
+                if (n == 0) {
+                    // Nothing more has arrived, so send the replies before waiting for keys
+                    out.flush();
+                    keys[0] = idleMillis == 0 ? in.getNextKey() : in.pollKey(idleMillis, TimeUnit.MILLISECONDS);
+                    if (!in.possibleNextInput()) {
+                        break;
+                    }
+                    if (keys[0] == InputSource.NO_KEY) {
+                        out.write("IDLE\n");
+                        break;
+                    }
+                    n = 1;
+                }
+                for (int i = 0; i < n && !session.closed(); i++) {
+                    char key = keys[i];
+                    if (key != '\n' && key != '\r' && key != ' ') {
+                        reply(session, session.press(key), out);
+                    }
+                }
+            }
+            out.flush();
+        } catch (SocketException excp) {
+            // The player disconnected
+        } catch (IOException excp) {
+            excp.printStackTrace();
+        } finally {
+            sessions.decrementAndGet();
+        }
+    }
+
+    /**
+     * Writes what a key press changed.
+     */
+    private static void reply(GameSession session, int result, Writer out) throws IOException {
+        switch (result) {
+            case GameSession.STARTED:
+                out.write("WORLD " + session.seed() + "\n");
+                for (int y = session.height() - 1; y >= 0; y--) {
+                    for (int x = 0; x < session.width(); x++) {
+                        out.write(session.tile(x, y).character());
+                    }
+                    out.write('\n');
+                }
+                break;
+            case GameSession.MOVED:
+                for (int i = 0; i < session.changedCount(); i++) {
+                    int x = session.changedX(i);
+                    int y = session.changedY(i);
+                    TETile tile = session.tile(x, y);
+                    out.write("TILE " + x + " " + y + " " + tile.character() + "\n");
+                }
+                if (session.won()) {
+                    out.write("WIN\n");
+                }
+                break;
+            case GameSession.CLOSED:
+                out.write("BYE\n");
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Returns the port the server listens on.
+     *
+     * @return The port.
+     */
+    public int port() {
+        return socket.getLocalPort();
+    }
+
+    /**
+     * Returns the number of sessions connected right now.
+     *
+     * @return The number of sessions.
+     */
+    public int sessions() {
+        return sessions.get();
+    }
+
+    /**
+     * Returns true if each connection runs on a virtual thread.
+     *
+     * @return true with virtual threads, false with platform threads.
+     */
+    public boolean virtualThreads() {
+        return virtual;
+    }
+
+    /**
+     * Returns the most sessions that play at once: unlimited with virtual threads, and the
+     * number of platform threads otherwise.
+     *
+     * @return The number of sessions, or Integer.MAX_VALUE with virtual threads.
+     */
+    public int maxSessions() {
+        return virtual ? Integer.MAX_VALUE : threads;
+    }
+
+    /**
+     * Returns the address the server listens on.
+     *
+     * @return The address.
+     */
+    public InetAddress address() {
+        return socket.getInetAddress();
+    }
+
+    /**
+     * Stops accepting connections. Sessions already connected keep playing.
+     */
+    @Override
+    public void close() {
+        try {
+            socket.close();
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+        connections.shutdown();
+    }
+
+    /**
+     * Runs a server on the given port, 4242 by default, on the loopback address unless
+     * -Dbyow.serverAddress gives another, with at most -Dbyow.serverThreads platform threads
+     * when there are no virtual threads, closing sessions idle for -Dbyow.serverIdleSeconds,
+     * and with a world cache configured by
+     * -Dbyow.worldCacheBytes and -Dbyow.worldCacheDir like the game's.
+     */
+    public static void main(String[] args) {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        String directory = System.getProperty("byow.worldCacheDir");
+        WorldCache worlds = new WorldCache(Long.getLong("byow.worldCacheBytes", 16 << 20),
+                directory == null ? null : new File(directory));
+        String host = System.getProperty("byow.serverAddress");
+        InetAddress address;
+        try {
+            address = host == null ? InetAddress.getLoopbackAddress() : InetAddress.getByName(host);
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+        GameServer server = new GameServer(address, port, worlds,
+                Integer.getInteger("byow.serverThreads", DEFAULT_THREADS),
+                Integer.getInteger("byow.serverIdleSeconds", DEFAULT_IDLE_SECONDS));
+        System.out.println("Serving Pika-Run on " + server.address().getHostAddress() + " port " + server.port()
+                + (server.virtualThreads() ? " with virtual threads"
+                : " with platform threads, at most " + server.maxSessions()
+                + " sessions at once (-Dbyow.serverThreads)"));
+        server.serve();
+    }
+}
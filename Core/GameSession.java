@@ -0,0 +1,428 @@
+package byow.Core;
+
+import byow.TileEngine.TETile;
+import byow.TileEngine.TileGrid;
+import byow.TileEngine.Tileset;
+
+/**
+ * One game of Pika-Run held in an instance, so that many games can run in one JVM. The
+ * session holds the rules of the game: the menu, the seed and the moves. It draws nothing,
+ * touches no save files and never exits the JVM. Engine is a static front over one session
+ * that adds drawing, saving, loading and replays, and GameServer runs one session per
+ * connection.
+ *
+ * Keys are pressed one at a time: "n", the digits of the seed and "s" start a game, then
+ * "w", "a", "s" and "d" move the avatar and ":q" ends the session. Digits typed on the menu
+ * count towards the seed even before "n", and "s" or "q" before "n" ends the session. Keys
+ * that mean nothing are ignored, since they may come from a remote player: "s" after "n"
+ * with no digits, digits that would make the seed too large for a long, any other key, and
+ * "l" and "r", which need the save files and are Engine's to handle. Each press reports
+ * what changed, so callers redraw or send only the tiles that did. Until a game starts a
+ * session holds no world, and afterwards only a TileGrid of one byte per tile, or, for an
+ * endless session, a ChunkedWorld without an exit.
+ */
+public class GameSession {
+    /** The key changed nothing. */
+    public static final int IGNORED = 0;
+    /** The key changed the tiles reported by changedCount, changedX and changedY. */
+    public static final int MOVED = 1;
+    /** The key started a game with a new world. */
+    public static final int STARTED = 2;
+    /** The key ended the session. */
+    public static final int CLOSED = 3;
+
+    // Rooms and hallways per world, for Engine and every session
+    static final int TOTAL = 200;
+    private static final byte FLOOR = Tileset.id(Tileset.MY_FLOOR);
+    private static final byte AVATAR = Tileset.id(Tileset.MY_AVATAR);
+    private static final byte DOOR = Tileset.id(Tileset.LOCKED_DOOR);
+
+    private final WorldCache worlds;
+    private final int width;
+    private final int height;
+    private final boolean endless;
+    private TileGrid world;
+    private ChunkedWorld chunks;
+    private boolean seeding;
+    private int digits;
+    private long seed;
+    private int avatarX;
+    private int avatarY;
+    private int exitX;
+    private int exitY;
+    private boolean colon;
+    private boolean won;
+    private boolean closed;
+    // The tiles changed by the last move
+    private final int[] changedX = new int[2];
+    private final int[] changedY = new int[2];
+    private int changes;
+
+    /**
+     * Creates a session at the main menu.
+     *
+     * @param worlds The cache to take worlds from and add new worlds to, which may be shared.
+     * @param width  The width of the world.
+     * @param height The height of the world.
+     */
+    public GameSession(WorldCache worlds, int width, int height) {
+        this(worlds, width, height, false);
+    }
+
+    /**
+     * Creates a session at the main menu, which may start an endless world instead.
+     *
+     * @param worlds  The cache to take worlds from and add new worlds to, which may be shared.
+     * @param width   The width of the world, or of each chunk of an endless world.
+     * @param height  The height of the world, or of each chunk of an endless world.
+     * @param endless Whether a game starts an endless ChunkedWorld, which is not cached.
+     */
+    public GameSession(WorldCache worlds, int width, int height, boolean endless) {
+        this.worlds = worlds;
+        this.width = width;
+        this.height = height;
+        this.endless = endless;
+    }
+
+    /**
+     * Presses a key.
+     *
+     * @param key The key, in either case.
+     * @return IGNORED, MOVED, STARTED or CLOSED.
+     */
+    public int press(char key) {
+        changes = 0;
+        if (closed) {
+            return IGNORED;
+        }
+        char k = Character.toLowerCase(key);
+        if (!started()) {
+            return pressMenu(k);
+        }
+        switch (k) {
+            case 'w':
+                return move(0, 1);
+            case 'a':
+                return move(-1, 0);
+            case 's':
+                return move(0, -1);
+            case 'd':
+                return move(1, 0);
+            case ':':
+                colon = true;
+                return IGNORED;
+            case 'q':
+                if (colon) {
+                    closed = true;
+                    return CLOSED;
+                }
+                return IGNORED;
+            default:
+                return IGNORED;
+        }
+    }
+
+    /**
+     * Presses a key on the menu, where "n" starts entering a seed, digits add to it and
+     * "s" generates its world.
+     */
+    private int pressMenu(char k) {
+        // "s" before "n" quits, since there is no seed to start
+        if (k == 'q' || (k == 's' && !seeding)) {
+            closed = true;
+            return CLOSED;
+        }
+        if (k == 'n') {
+            seeding = true;
+        } else if (Character.isDigit(k)) {
+            int digit = k - '0';
+            // Seeds that would not fit in a long are ignored, as Long.parseLong would reject them
+            if (seed <= (Long.MAX_VALUE - digit) / 10) {
+                seed = seed * 10 + digit;
+                digits++;
+            }
+        } else if (k == 's' && digits > 0) {
+            start(seed);
+            return STARTED;
+        }
+        return IGNORED;
+    }
+
+    /**
+     * Starts a game without going through the menu, as loading a saved game does: generates
+     * the world of the seed, or copies it from the cache, with the avatar and exit placed.
+     * An endless session places the avatar where its ChunkedWorld starts instead.
+     *
+     * @param gameSeed The seed.
+     */
+    void start(long gameSeed) {
+        seed = gameSeed;
+        seeding = true;
+        if (endless) {
+            chunks = new ChunkedWorld(gameSeed, width, height, TOTAL, ChunkedWorld.DEFAULT_CAPACITY);
+            int[] avatar = new int[2];
+            chunks.start(avatar);
+            chunks.set(avatar[0], avatar[1], Tileset.MY_AVATAR);
+            avatarX = avatar[0];
+            avatarY = avatar[1];
+            return;
+        }
+        TETile[][] tiles = new TETile[width][height];
+        int[] avatar = new int[2];
+        int[] exit = new int[2];
+        createWorld(worlds, seed, tiles, avatar, exit);
+        world = TileGrid.fromTiles(tiles);
+        avatarX = avatar[0];
+        avatarY = avatar[1];
+        exitX = exit[0];
+        exitY = exit[1];
+    }
+
+    /**
+     * Restores a game saved at some point, without going through the menu. The game is won
+     * if the avatar stands on the exit.
+     *
+     * @param grid     The tiles of the world, which the session keeps and changes.
+     * @param gameSeed The seed of the world.
+     * @param avatar   The avatar's coordinates.
+     * @param exit     The exit's coordinates.
+     */
+    void restore(TileGrid grid, long gameSeed, int[] avatar, int[] exit) {
+        if (grid.width() != width || grid.height() != height) {
+            throw new IllegalArgumentException("world is " + grid.width() + "x" + grid.height()
+                    + ", not " + width + "x" + height);
+        }
+        world = grid;
+        seed = gameSeed;
+        seeding = true;
+        avatarX = avatar[0];
+        avatarY = avatar[1];
+        exitX = exit[0];
+        exitY = exit[1];
+        won = avatarX == exitX && avatarY == exitY;
+    }
+
+    /**
+     * Moves the avatar by one tile if the tile there is a floor or the exit. An endless
+     * world has no exit, so only floors can be walked on.
+     */
+    private int move(int dx, int dy) {
+        int x = avatarX + dx;
+        int y = avatarY + dy;
+        if (chunks != null) {
+            if (chunks.get(x, y) != Tileset.MY_FLOOR) {
+                return IGNORED;
+            }
+            chunks.set(avatarX, avatarY, Tileset.MY_FLOOR);
+            chunks.set(x, y, Tileset.MY_AVATAR);
+        } else {
+            byte next = world.id(x, y);
+            if (next != FLOOR && next != DOOR) {
+                return IGNORED;
+            }
+            world.setId(avatarX, avatarY, FLOOR);
+            if (next == DOOR) {
+                won = true;
+            }
+            world.setId(x, y, AVATAR);
+        }
+        changedX[0] = avatarX;
+        changedY[0] = avatarY;
+        changedX[1] = x;
+        changedY[1] = y;
+        changes = 2;
+        avatarX = x;
+        avatarY = y;
+        return MOVED;
+    }
+
+    /**
+     * Fills the world for a seed, copying it from the cache if it was generated before and
+     * generating it and adding it to the cache otherwise, with the avatar and exit placed.
+     * Every session creates its worlds here.
+     *
+     * @param worlds The world cache.
+     * @param seed   The seed.
+     * @param world  The array to fill, which sets the size of the world.
+     * @param avatar The array to store the avatar's coordinates.
+     * @param exit   The array to store the exit's coordinates.
+     */
+    static void createWorld(WorldCache worlds, long seed, TETile[][] world, int[] avatar, int[] exit) {
+        if (worlds.load(seed, TOTAL, world, avatar, exit)) {
+            return;
+        }
+        Room room = new Room(seed, world.length, world[0].length);
+        Room.emptyBoard(world);
+        room.drawWorld(world, TOTAL);
+        Placement.find(world, avatar, exit);
+        world[avatar[0]][avatar[1]] = Tileset.MY_AVATAR;
+        world[exit[0]][exit[1]] = Tileset.LOCKED_DOOR;
+        worlds.store(seed, TOTAL, world, avatar, exit);
+    }
+
+    /**
+     * Returns the number of tiles changed by the last key, 2 after a move and 0 otherwise.
+     *
+     * @return The number of changed tiles.
+     */
+    public int changedCount() {
+        return changes;
+    }
+
+    /**
+     * Returns the x-coordinate of a tile changed by the last key.
+     *
+     * @param i The index of the change, less than changedCount().
+     * @return The x-coordinate.
+     */
+    public int changedX(int i) {
+        return changedX[i];
+    }
+
+    /**
+     * Returns the y-coordinate of a tile changed by the last key.
+     *
+     * @param i The index of the change, less than changedCount().
+     * @return The y-coordinate.
+     */
+    public int changedY(int i) {
+        return changedY[i];
+    }
+
+    /**
+     * Returns the tile at a position of the world.
+     *
+     * @param x The x-coordinate.
+     * @param y The y-coordinate.
+     * @return The tile.
+     */
+    public TETile tile(int x, int y) {
+        return chunks != null ? chunks.get(x, y) : world.get(x, y);
+    }
+
+    /**
+     * Returns true once a game has started.
+     *
+     * @return true if there is a world.
+     */
+    public boolean started() {
+        return world != null || chunks != null;
+    }
+
+    /**
+     * Returns true once "n" has been typed on the menu, or a game has started.
+     *
+     * @return true if a seed is being typed or was typed.
+     */
+    public boolean seeding() {
+        return seeding;
+    }
+
+    /**
+     * Returns the number of digits typed for the seed on the menu.
+     *
+     * @return The number of digits.
+     */
+    public int digits() {
+        return digits;
+    }
+
+    /**
+     * Returns the tiles of the world, which change as the avatar moves.
+     *
+     * @return The world, or null before a game starts or in an endless session.
+     */
+    TileGrid grid() {
+        return world;
+    }
+
+    /**
+     * Returns the endless world of an endless session.
+     *
+     * @return The world, or null before a game starts or if the session is not endless.
+     */
+    ChunkedWorld chunks() {
+        return chunks;
+    }
+
+    /**
+     * Returns the seed of the game, or of the digits typed so far.
+     *
+     * @return The seed.
+     */
+    public long seed() {
+        return seed;
+    }
+
+    /**
+     * Returns the width of the world.
+     *
+     * @return The width in tiles.
+     */
+    public int width() {
+        return width;
+    }
+
+    /**
+     * Returns the height of the world.
+     *
+     * @return The height in tiles.
+     */
+    public int height() {
+        return height;
+    }
+
+    /**
+     * Returns the x-coordinate of the avatar.
+     *
+     * @return The x-coordinate.
+     */
+    public int avatarX() {
+        return avatarX;
+    }
+
+    /**
+     * Returns the y-coordinate of the avatar.
+     *
+     * @return The y-coordinate.
+     */
+    public int avatarY() {
+        return avatarY;
+    }
+
+    /**
+     * Returns the x-coordinate of the exit.
+     *
+     * @return The x-coordinate.
+     */
+    public int exitX() {
+        return exitX;
+    }
+
+    /**
+     * Returns the y-coordinate of the exit.
+     *
+     * @return The y-coordinate.
+     */
+    public int exitY() {
+        return exitY;
+    }
+
+    /**
+     * Returns true once the avatar has reached the exit.
+     *
+     * @return true if the game is won.
+     */
+    public boolean won() {
+        return won;
+    }
+
+    /**
+     * Returns true once the session has ended with "q" on the menu or ":q" in a game.
+     *
+     * @return true if the session is closed.
+     */
+    public boolean closed() {
+        return closed;
+    }
+}
@@ -0,0 +1,60 @@
+package byow.Core;
+
+/**
+ * The linear congruential generator of java.util.Random, giving the same numbers for the
+ * same seed, with its state in a plain field instead of an AtomicLong. Random updates its
+ * seed with a compare-and-set on every draw so that it can be shared between threads;
+ * generation never shares a generator, so here a draw is a multiply and an add.
+ */
+final class LegacyRng implements Rng {
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    private long seed;
+
+    LegacyRng(long seed) {
+        this.seed = (seed ^ MULTIPLIER) & MASK;
+    }
+
+    /**
+     * Advances the state and returns its top bits, as Random.next does.
+     */
+    private int next(int bits) {
+        seed = (seed * MULTIPLIER + ADDEND) & MASK;
+        return (int) (seed >>> (48 - bits));
+    }
+
+    @Override
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("bound must be positive: " + bound);
+        }
+        int r = next(31);
+        int m = bound - 1;
+        if ((bound & m) == 0) {
+            return (int) ((bound * (long) r) >> 31);
+        }
+        // Reject the values of the last, incomplete range, as Random.nextInt does
+        for (int u = r; u - (r = u % bound) + m < 0; u = next(31)) {
+            continue;
+        }
+        return r;
+    }
+
+    @Override
+    public long nextLong() {
+        return ((long) next(32) << 32) + next(32);
+    }
+
+    @Override
+    public double nextDouble() {
+        return (((long) next(26) << 27) + next(27)) * DOUBLE_UNIT;
+    }
+
+    @Override
+    public Rng split() {
+        return new LegacyRng(nextLong());
+    }
+}
@@ -1,18 +1,29 @@
 package byow.Core;
 
+import byow.TileEngine.AnsiRenderer;
+import byow.TileEngine.TETile;
+
 /** This is the main entry point for the program. This class simply parses
  *  the command line inputs, and lets the byow.Core.Engine class take over
- *  in either keyboard or input string mode.
+ *  in either keyboard or input string mode. In input string mode the resulting
+ *  world is printed to the terminal in color. With -t the game is played in
+ *  the terminal instead of a window. With -server [port] it hosts
+ *  headless games over TCP instead, one session per connection.
  */
 public class Main {
     public static void main(String[] args) {
         if (args.length > 2) {
             System.out.println("Can only have two arguments - the flag and input string");
             System.exit(0);
+        } else if (args.length >= 1 && args[0].equals("-server")) {
+            GameServer.main(args.length == 2 ? new String[]{args[1]} : new String[0]);
+        } else if (args.length == 1 && args[0].equals("-t")) {
+            new Engine();
+            Engine.interactWithTerminal();
         } else if (args.length == 2 && args[0].equals("-s")) {
             Engine engine = new Engine();
-            engine.interactWithInputString(args[1]);
-            System.out.println(engine.toString());
+            TETile[][] world = engine.interactWithInputString(args[1]);
+            AnsiRenderer.standardOutput().print(world);
         } else {
             Engine engine = new Engine();
             engine.interactWithKeyboard();
@@ -0,0 +1,85 @@
+package byow.Core;
+
+import byow.TileEngine.TETile;
+import byow.TileEngine.Tileset;
+
+/**
+ * Chooses where the avatar starts and where the exit goes in a generated world: the two
+ * floor tiles farthest apart, with the exit then moved from its floor tile onto the wall
+ * next to it, across from a neighbouring floor. This is the placement Engine uses for
+ * every new world, so tools that look at worlds without running a game get the same
+ * avatar and exit positions as players do.
+ */
+public final class Placement {
+    private Placement() {
+    }
+
+    /**
+     * Finds the avatar and exit positions for a world. The world is left as it was.
+     *
+     * @param world  The generated world, before the avatar and exit are placed.
+     * @param avatar The array to store the avatar's coordinates.
+     * @param exit   The array to store the exit's coordinates.
+     * @return The number of floor tiles in the world.
+     */
+    public static int find(TETile[][] world, int[] avatar, int[] exit) {
+        int width = world.length;
+        int height = world[0].length;
+        int[] xs = new int[width * height];
+        int[] ys = new int[width * height];
+        int count = floors(world, xs, ys);
+        FarthestPair.find(xs, ys, count, avatar, exit);
+        // The avatar is in place before the exit moves, so its tile does not count as a floor
+        TETile under = world[avatar[0]][avatar[1]];
+        world[avatar[0]][avatar[1]] = Tileset.MY_AVATAR;
+        adjustGateLocation(world, exit);
+        world[avatar[0]][avatar[1]] = under;
+        return count;
+    }
+
+    /**
+     * Collects the floor coordinates in the world, column by column.
+     *
+     * @param world The world.
+     * @param xs    The array to store the x-coordinates of the floors.
+     * @param ys    The array to store the y-coordinates of the floors.
+     * @return The number of floor tiles in the world.
+     */
+    static int floors(TETile[][] world, int[] xs, int[] ys) {
+        int count = 0;
+        for (int i = 0; i < world.length; i++) {
+            for (int j = 0; j < world[i].length; j++) {
+                if (world[i][j].equals(Tileset.MY_FLOOR)) {
+                    xs[count] = i;
+                    ys[count] = j;
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Moves the exit from its floor tile to the tile on the other side of it from the
+     * first neighbouring floor found, checking left, right, below and above in that order.
+     *
+     * @param world  The world.
+     * @param coords The exit's coordinates to be adjusted.
+     */
+    static void adjustGateLocation(TETile[][] world, int[] coords) {
+        int gateWidth = coords[0];
+        int gateHeight = coords[1];
+
+        if (world[gateWidth - 1][gateHeight].equals(Tileset.MY_FLOOR)) {
+            gateWidth += 1;
+        } else if (world[gateWidth + 1][gateHeight].equals(Tileset.MY_FLOOR)) {
+            gateWidth -= 1;
+        } else if (world[gateWidth][gateHeight - 1].equals(Tileset.MY_FLOOR)) {
+            gateHeight += 1;
+        } else if (world[gateWidth][gateHeight + 1].equals(Tileset.MY_FLOOR)) {
+            gateHeight -= 1;
+        }
+        coords[0] = gateWidth;
+        coords[1] = gateHeight;
+    }
+}
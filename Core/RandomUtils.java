@@ -1,12 +1,12 @@
 package byow.Core;
 
-import java.util.Random;
-
 /**
  * A library of static methods to generate pseudo-random numbers from
  * different distributions (bernoulli, uniform, gaussian, discrete,
  * and exponential). Also includes methods for shuffling an array and
  * other randomness related stuff you might want to do. 
+ * Every method draws from the given Rng, so the same calls work with
+ * either the legacy or the fast generator.
  * <p>
  * Adapted from https://introcs.cs.princeton.edu/java/22library/StdRandom.java.html
 *
@@ -18,7 +18,7 @@ public class RandomUtils {
      *
      * @return a random real number uniformly in [0, 1)
      */
-    public static double uniform(Random random) {
+    public static double uniform(Rng random) {
         return random.nextDouble();
     }
 
@@ -29,7 +29,7 @@ public class RandomUtils {
      * @return a random integer uniformly between 0 (inclusive) and {@code n} (exclusive)
      * @throws IllegalArgumentException if {@code n <= 0}
      */
-    public static int uniform(Random random, int n) {
+    public static int uniform(Rng random, int n) {
         if (n <= 0) {
             throw new IllegalArgumentException("argument must be positive: " + n);
         }
@@ -44,7 +44,7 @@ public class RandomUtils {
      * @return a random long integer uniformly between 0 (inclusive) and {@code n} (exclusive)
      * @throws IllegalArgumentException if {@code n <= 0}
      */
-    public static long uniform(Random random, long n) {
+    public static long uniform(Rng random, long n) {
         if (n <= 0L) {
             throw new IllegalArgumentException("argument must be positive: " + n);
         }
@@ -77,7 +77,7 @@ public class RandomUtils {
      * @throws IllegalArgumentException if {@code b <= a}
      * @throws IllegalArgumentException if {@code b - a >= Integer.MAX_VALUE}
      */
-    public static int uniform(Random random, int a, int b) {
+    public static int uniform(Rng random, int a, int b) {
         if ((b <= a) || ((long) b - a >= Integer.MAX_VALUE)) {
             throw new IllegalArgumentException("invalid range: [" + a + ", " + b + ")");
         }
@@ -92,7 +92,7 @@ public class RandomUtils {
      * @return a random real number uniformly in [a, b)
      * @throws IllegalArgumentException unless {@code a < b}
      */
-    public static double uniform(Random random, double a, double b) {
+    public static double uniform(Rng random, double a, double b) {
         if (!(a < b)) {
             throw new IllegalArgumentException("invalid range: [" + a + ", " + b + ")");
         }
@@ -108,7 +108,7 @@ public class RandomUtils {
      * {@code false} with probability {@code p}
      * @throws IllegalArgumentException unless {@code 0} &le; {@code p} &le; {@code 1.0}
      */
-    public static boolean bernoulli(Random random, double p) {
+    public static boolean bernoulli(Rng random, double p) {
         if (!(p >= 0.0 && p <= 1.0)) {
             throw new IllegalArgumentException("probability p must be between 0.0 and 1.0: " + p);
         }
@@ -122,7 +122,7 @@ public class RandomUtils {
      * @return {@code true} with probability 1/2 and
      * {@code false} with probability 1/2
      */
-    public static boolean bernoulli(Random random) {
+    public static boolean bernoulli(Rng random) {
         return bernoulli(random, 0.5);
     }
 
@@ -132,7 +132,7 @@ public class RandomUtils {
      * @return a random real number from a standard Gaussian distribution
      * (mean 0 and standard deviation 1).
      */
-    public static double gaussian(Random random) {
+    public static double gaussian(Rng random) {
         // use the polar form of the Box-Muller transform
         double r, x, y;
         do {
@@ -155,7 +155,7 @@ public class RandomUtils {
      * @return a real number distributed according to the Gaussian distribution
      * with mean {@code mu} and standard deviation {@code sigma}
      */
-    public static double gaussian(Random random, double mu, double sigma) {
+    public static double gaussian(Rng random, double mu, double sigma) {
         return mu + sigma * gaussian(random);
     }
 
@@ -169,7 +169,7 @@ public class RandomUtils {
      * {@code p} is (nearly) equal to {@code 1.0}.
      * @throws IllegalArgumentException unless {@code p >= 0.0} and {@code p <= 1.0}
      */
-    public static int geometric(Random random, double p) {
+    public static int geometric(Rng random, double p) {
         if (!(p >= 0.0 && p <= 1.0)) {
             throw new IllegalArgumentException("probability p must be between 0.0 and 1.0: " + p);
         }
@@ -184,7 +184,7 @@ public class RandomUtils {
      * @return a random integer from a Poisson distribution with mean {@code lambda}
      * @throws IllegalArgumentException unless {@code lambda > 0.0} and not infinite
      */
-    public static int poisson(Random random, double lambda) {
+    public static int poisson(Rng random, double lambda) {
         if (!(lambda > 0.0)) {
             throw new IllegalArgumentException("lambda must be positive: " + lambda);
         }
@@ -208,7 +208,7 @@ public class RandomUtils {
      *
      * @return a random real number from the standard Pareto distribution
      */
-    public static double pareto(Random random) {
+    public static double pareto(Rng random) {
         return pareto(random, 1.0);
     }
 
@@ -221,7 +221,7 @@ public class RandomUtils {
      * parameter {@code alpha}
      * @throws IllegalArgumentException unless {@code alpha > 0.0}
      */
-    public static double pareto(Random random, double alpha) {
+    public static double pareto(Rng random, double alpha) {
         if (!(alpha > 0.0)) {
             throw new IllegalArgumentException("alpha must be positive: " + alpha);
         }
@@ -233,7 +233,7 @@ public class RandomUtils {
      *
      * @return a random real number from the Cauchy distribution.
      */
-    public static double cauchy(Random random) {
+    public static double cauchy(Rng random) {
         return Math.tan(Math.PI * (uniform(random) - 0.5));
     }
 
@@ -247,7 +247,7 @@ public class RandomUtils {
      * @throws IllegalArgumentException if sum of array entries is not (very nearly) equal to 1.0
      * @throws IllegalArgumentException unless {@code probabilities[i] >= 0.0} for each index i
      */
-    public static int discrete(Random random, double[] probabilities) {
+    public static int discrete(Rng random, double[] probabilities) {
         if (probabilities == null) {
             throw new IllegalArgumentException("argument array is null");
         }
@@ -290,7 +290,7 @@ public class RandomUtils {
      * @throws IllegalArgumentException if frequencies[i] is negative for any index i
      * @throws IllegalArgumentException if sum of frequencies exceeds Integer.MAX_VALUE (2^31 - 1)
      */
-    public static int discrete(Random random, int[] frequencies) {
+    public static int discrete(Rng random, int[] frequencies) {
         if (frequencies == null) {
             throw new IllegalArgumentException("argument array is null");
         }
@@ -333,7 +333,7 @@ public class RandomUtils {
      * rate {@code lambda}
      * @throws IllegalArgumentException unless {@code lambda > 0.0}
      */
-    public static double exp(Random random, double lambda) {
+    public static double exp(Rng random, double lambda) {
         if (!(lambda > 0.0)) {
             throw new IllegalArgumentException("lambda must be positive: " + lambda);
         }
@@ -346,7 +346,7 @@ public class RandomUtils {
      * @param a the array to shuffle
      * @throws IllegalArgumentException if {@code a} is {@code null}
      */
-    public static void shuffle(Random random, Object[] a) {
+    public static void shuffle(Rng random, Object[] a) {
         validateNotNull(a);
         int n = a.length;
         for (int i = 0; i < n; i++) {
@@ -363,7 +363,7 @@ public class RandomUtils {
      * @param a the array to shuffle
      * @throws IllegalArgumentException if {@code a} is {@code null}
      */
-    public static void shuffle(Random random, double[] a) {
+    public static void shuffle(Rng random, double[] a) {
         validateNotNull(a);
         int n = a.length;
         for (int i = 0; i < n; i++) {
@@ -380,7 +380,7 @@ public class RandomUtils {
      * @param a the array to shuffle
      * @throws IllegalArgumentException if {@code a} is {@code null}
      */
-    public static void shuffle(Random random, int[] a) {
+    public static void shuffle(Rng random, int[] a) {
         validateNotNull(a);
         int n = a.length;
         for (int i = 0; i < n; i++) {
@@ -397,7 +397,7 @@ public class RandomUtils {
      * @param a the array to shuffle
      * @throws IllegalArgumentException if {@code a} is {@code null}
      */
-    public static void shuffle(Random random, char[] a) {
+    public static void shuffle(Rng random, char[] a) {
         validateNotNull(a);
         int n = a.length;
         for (int i = 0; i < n; i++) {
@@ -417,7 +417,7 @@ public class RandomUtils {
      * @throws IllegalArgumentException if {@code a} is {@code null}
      * @throws IllegalArgumentException unless {@code (0 <= lo) && (lo < hi) && (hi <= a.length)}
      */
-    public static void shuffle(Random random, Object[] a, int lo, int hi) {
+    public static void shuffle(Rng random, Object[] a, int lo, int hi) {
         validateNotNull(a);
         validateSubarrayIndices(lo, hi, a.length);
 
@@ -438,7 +438,7 @@ public class RandomUtils {
      * @throws IllegalArgumentException if {@code a} is {@code null}
      * @throws IllegalArgumentException unless {@code (0 <= lo) && (lo < hi) && (hi <= a.length)}
      */
-    public static void shuffle(Random random, double[] a, int lo, int hi) {
+    public static void shuffle(Rng random, double[] a, int lo, int hi) {
         validateNotNull(a);
         validateSubarrayIndices(lo, hi, a.length);
 
@@ -459,7 +459,7 @@ public class RandomUtils {
      * @throws IllegalArgumentException if {@code a} is {@code null}
      * @throws IllegalArgumentException unless {@code (0 <= lo) && (lo < hi) && (hi <= a.length)}
      */
-    public static void shuffle(Random random, int[] a, int lo, int hi) {
+    public static void shuffle(Rng random, int[] a, int lo, int hi) {
         validateNotNull(a);
         validateSubarrayIndices(lo, hi, a.length);
 
@@ -479,7 +479,7 @@ public class RandomUtils {
      * of {@code 0}, {@code 1}, ..., {@code n-1}
      * @throws IllegalArgumentException if {@code n} is negative
      */
-    public static int[] permutation(Random random, int n) {
+    public static int[] permutation(Rng random, int n) {
         if (n < 0) {
             throw new IllegalArgumentException("argument is negative");
         }
@@ -501,7 +501,7 @@ public class RandomUtils {
      * @throws IllegalArgumentException if {@code n} is negative
      * @throws IllegalArgumentException unless {@code 0 <= k <= n}
      */
-    public static int[] permutation(Random random, int n, int k) {
+    public static int[] permutation(Rng random, int n, int k) {
         if (n < 0) {
             throw new IllegalArgumentException("argument is negative");
         }
@@ -0,0 +1,205 @@
+package byow.Core;
+
+import byow.TileEngine.TETile;
+import byow.TileEngine.Tileset;
+
+/**
+ * Replays the moves of a saved game on top of its freshly generated world, and can jump
+ * to any move. Only the avatar moves during a game, so the state after any move is the
+ * avatar's position and whether it has reached the exit yet. While moving forward the
+ * replay records that state as a checkpoint every few moves, so seeking to a move restores
+ * the checkpoint before it and replays at most one checkpoint interval of moves.
+ *
+ * The world passed in is updated in place, so it can be rendered after every move.
+ */
+public class Replay {
+    private final TETile[][] world;
+    private final CharSequence moves;
+    private final int interval;
+    private final int exitX;
+    private final int exitY;
+
+    private int[] checkpointX;
+    private int[] checkpointY;
+    private boolean[] checkpointWon;
+    private int checkpoints;
+
+    private int step;
+    private int x;
+    private int y;
+    private boolean won;
+
+    /**
+     * Creates a replay positioned before the first move.
+     *
+     * @param world    The world right after it was generated, with the avatar and exit placed.
+     * @param avatarX  The x-coordinate of the avatar.
+     * @param avatarY  The y-coordinate of the avatar.
+     * @param exitX    The x-coordinate of the exit.
+     * @param exitY    The y-coordinate of the exit.
+     * @param moves    The moves to replay, one of 'w', 'a', 's' or 'd' each. Other keys are skipped.
+     * @param interval The number of moves between checkpoints.
+     */
+    public Replay(TETile[][] world, int avatarX, int avatarY, int exitX, int exitY,
+                  CharSequence moves, int interval) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("interval must be positive: " + interval);
+        }
+        this.world = world;
+        this.moves = moves;
+        this.interval = interval;
+        this.exitX = exitX;
+        this.exitY = exitY;
+        int capacity = moves.length() / interval + 1;
+        checkpointX = new int[capacity];
+        checkpointY = new int[capacity];
+        checkpointWon = new boolean[capacity];
+        x = avatarX;
+        y = avatarY;
+        step = 0;
+        won = false;
+        record();
+    }
+
+    /**
+     * Plays the next move.
+     *
+     * @return true if a move was played, false if the replay is already at the end.
+     */
+    public boolean next() {
+        if (step >= moves.length()) {
+            return false;
+        }
+        move(moves.charAt(step));
+        step++;
+        if (step % interval == 0 && step / interval == checkpoints) {
+            record();
+        }
+        return true;
+    }
+
+    /**
+     * Moves the replay to the state right after the given number of moves, going back to
+     * the nearest checkpoint first if that is closer than the current position.
+     *
+     * @param target The number of moves to have played, between 0 and length().
+     */
+    public void seek(int target) {
+        if (target < 0 || target > moves.length()) {
+            throw new IllegalArgumentException("No such move: " + target);
+        }
+        int checkpoint = Math.min(target / interval, checkpoints - 1);
+        if (target < step || checkpoint * interval > step) {
+            restore(checkpoint);
+        }
+        while (step < target) {
+            next();
+        }
+    }
+
+    /**
+     * Returns the number of moves played so far.
+     *
+     * @return The current move.
+     */
+    public int step() {
+        return step;
+    }
+
+    /**
+     * Returns the number of moves in the replay.
+     *
+     * @return The number of moves.
+     */
+    public int length() {
+        return moves.length();
+    }
+
+    /**
+     * Returns the x-coordinate of the avatar.
+     *
+     * @return The x-coordinate.
+     */
+    public int avatarX() {
+        return x;
+    }
+
+    /**
+     * Returns the y-coordinate of the avatar.
+     *
+     * @return The y-coordinate.
+     */
+    public int avatarY() {
+        return y;
+    }
+
+    /**
+     * Returns true if the avatar has reached the exit by the current move.
+     *
+     * @return true if the game has been won.
+     */
+    public boolean won() {
+        return won;
+    }
+
+    /**
+     * Applies a move to the world, following the same rules as Engine.movements.
+     *
+     * @param move The move.
+     */
+    private void move(char move) {
+        int nextX = x;
+        int nextY = y;
+        switch (move) {
+            case 'w':
+                nextY += 1;
+                break;
+            case 's':
+                nextY -= 1;
+                break;
+            case 'd':
+                nextX += 1;
+                break;
+            case 'a':
+                nextX -= 1;
+                break;
+            default:
+                return;
+        }
+        TETile next = world[nextX][nextY];
+        if (next == Tileset.MY_FLOOR || next == Tileset.LOCKED_DOOR) {
+            world[x][y] = Tileset.MY_FLOOR;
+            if (next == Tileset.LOCKED_DOOR) {
+                won = true;
+            }
+            world[nextX][nextY] = Tileset.MY_AVATAR;
+            x = nextX;
+            y = nextY;
+        }
+    }
+
+    /**
+     * Records the current state as the next checkpoint.
+     */
+    private void record() {
+        checkpointX[checkpoints] = x;
+        checkpointY[checkpoints] = y;
+        checkpointWon[checkpoints] = won;
+        checkpoints++;
+    }
+
+    /**
+     * Puts the world back in the state of the given checkpoint.
+     *
+     * @param checkpoint The index of the checkpoint.
+     */
+    private void restore(int checkpoint) {
+        world[x][y] = Tileset.MY_FLOOR;
+        x = checkpointX[checkpoint];
+        y = checkpointY[checkpoint];
+        won = checkpointWon[checkpoint];
+        world[exitX][exitY] = won ? Tileset.MY_FLOOR : Tileset.LOCKED_DOOR;
+        world[x][y] = Tileset.MY_AVATAR;
+        step = checkpoint * interval;
+    }
+}
@@ -0,0 +1,64 @@
+package byow.Core;
+
+/**
+ * A source of random numbers for world generation, so that Room and RandomUtils can run on
+ * either of two generators:
+ *   legacy  draws exactly the numbers java.util.Random draws for the same seed, so every
+ *           seed keeps the world it has always had, without Random's atomic updates
+ *   fast    SplitMix64, the generator behind SplittableRandom, inlined, which is quicker
+ *           and can be split into independent generators for work spread over several
+ *           threads, for worlds that have no earlier version to match, like the chunks of
+ *           a ChunkedWorld
+ * A generator is not thread safe; each thread uses its own, or one split from another.
+ */
+public interface Rng {
+    /**
+     * Returns a random integer uniformly in [0, bound).
+     *
+     * @param bound The number of possible integers, which must be positive.
+     * @return The integer.
+     */
+    int nextInt(int bound);
+
+    /**
+     * Returns a random long.
+     *
+     * @return The long.
+     */
+    long nextLong();
+
+    /**
+     * Returns a random real number uniformly in [0, 1).
+     *
+     * @return The number.
+     */
+    double nextDouble();
+
+    /**
+     * Returns a new generator whose numbers are independent of this one's, advancing this
+     * one. Splitting the same generator the same way always gives the same generators.
+     *
+     * @return The new generator.
+     */
+    Rng split();
+
+    /**
+     * Returns a generator that draws the same numbers as new java.util.Random(seed).
+     *
+     * @param seed The seed.
+     * @return The generator.
+     */
+    static Rng legacy(long seed) {
+        return new LegacyRng(seed);
+    }
+
+    /**
+     * Returns a fast splittable generator.
+     *
+     * @param seed The seed.
+     * @return The generator.
+     */
+    static Rng fast(long seed) {
+        return new FastRng(seed);
+    }
+}
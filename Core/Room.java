@@ -4,26 +4,27 @@ import byow.TileEngine.Tileset;
 
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Random;
 import java.util.ArrayList;
 
 /**
  * The Room class handles room and hallway generation for the game world.
+ * All generation state belongs to the Room instance, so separate Room objects
+ * can generate worlds on separate threads at the same time.
  */
 public class Room {
-    private static int WIDTH;
-    private static int HEIGHT;
-    private static long SEED;
-    private static Random RANDOM;
+    private int WIDTH;
+    private int HEIGHT;
+    private Rng RANDOM;
     private static final int THREE = 3;
     private static final int FOUR = 4;
     private static final int FIVE = 5;
     private static final int ONEHUNDRED = 100;
+    private static final int WIDESTRIDE = 65537;
     private static final int NEGATIVETHREE = -3;
 
-    private static HashMap<Integer, ArrayList<CharacterPlacement>> TILES;
-    private static ArrayList<ArrayList<Integer>> ROOMS;
-    private static ArrayList<Integer> SIZES;
+    private HashMap<Integer, ArrayList<CharacterPlacement>> TILES;
+    private ArrayList<ArrayList<Integer>> ROOMS;
+    private ArrayList<Integer> SIZES;
 
     /**
      * Checks if a room has been fully constructed.
@@ -31,7 +32,7 @@ public class Room {
      * @param roomNum The index of the room to check.
      * @return true if the room has been fully constructed, false otherwise.
      */
-    private static boolean verification(int roomNum) {
+    private boolean verification(int roomNum) {
         ArrayList<Integer> sizes = ROOMS.get(roomNum);
         return sizes.get(2).equals(0);
     }
@@ -40,7 +41,7 @@ public class Room {
      *
      * @return true if the last area was vertical, false otherwise.
      */
-    private static boolean wasVertical() {
+    private boolean wasVertical() {
         int curr1 = horizontalSize(ID);
         int curr2 = verticalSize(ID);
         return curr2 >= curr1;
@@ -51,7 +52,7 @@ public class Room {
      * @param roomNum The index of the room.
      * @return The position of the room.
      */
-    private static CharacterPlacement getPosition(int roomNum) {
+    private CharacterPlacement getPosition(int roomNum) {
         ArrayList<Integer> size = ROOMS.get(roomNum);
         int x = size.get(THREE);
         int y = size.get(FOUR);
@@ -63,7 +64,7 @@ public class Room {
      * @param num The index of the room.
      * @return The horizontal size of the room.
      */
-    private static int horizontalSize(int num) {
+    private int horizontalSize(int num) {
         ArrayList<Integer> size = ROOMS.get(num);
         return size.get(0);
     }
@@ -73,26 +74,27 @@ public class Room {
      * @param num The index of the room.
      * @return The vertical size of the room.
      */
-    private static int verticalSize(int num) {
+    private int verticalSize(int num) {
         ArrayList<Integer> size = ROOMS.get(num);
         return size.get(1);
     }
 
-    private static ArrayList<CharacterPlacement> WALL;
-    private static ArrayList<CharacterPlacement> WALLS;
-    private static ArrayList<CharacterPlacement> REMOVE;
-    private static int TOTAL;
-    private static int ID;
-    private static CharacterPlacement latestPOSITION;
-    private static boolean VERIFICATION;
-    private static boolean capacity;
+    private ArrayList<CharacterPlacement> WALL;
+    private ArrayList<CharacterPlacement> WALLS;
+    private ArrayList<CharacterPlacement> REMOVE;
+    private int TOTAL;
+    private int ID;
+    private CharacterPlacement latestPOSITION;
+    private boolean VERIFICATION;
+    private boolean capacity;
+    private long[] occupied;
 
     /**
      * Returns the index of the closest fully constructed area.
      *
      * @return The index of the closest fully constructed area, or 0 if none found.
      */
-    private static int closest() {
+    private int closest() {
         int closestArea = 0;
 
         for (int id = ID; id >= 0; id--) {
@@ -109,27 +111,65 @@ public class Room {
 
 
     /**
-     * Constructs a new Room object with the specified seed, width, and height.
+     * Constructs a new Room object with the specified seed, width, and height. The seed
+     * drives the legacy generator, so it gives the same world it always has.
      *
      * @param seed The random seed for world generation.
      * @param x    The width of the game world.
      * @param y    The height of the game world.
      */
     public Room(long seed, int x, int y) {
+        this(Rng.legacy(seed), x, y);
+    }
+
+    /**
+     * Constructs a new Room object that draws from the given generator.
+     *
+     * @param random The generator for world generation, used only by this Room.
+     * @param x      The width of the game world.
+     * @param y      The height of the game world.
+     */
+    public Room(Rng random, int x, int y) {
         WIDTH = x;
         HEIGHT = y;
         TOTAL = 0;
         ID = 0;
-        SEED = seed;
         TILES = new HashMap<>();
         ROOMS = new ArrayList<>();
-        RANDOM = new Random(SEED);
+        RANDOM = random;
         SIZES = new ArrayList<>(FIVE);
         REMOVE = new ArrayList<>();
         VERIFICATION = true;
         capacity = false;
         WALL = new ArrayList<CharacterPlacement>();
         WALLS = new ArrayList<CharacterPlacement>();
+        occupied = new long[(WIDTH * HEIGHT + 63) >>> 6];
+    }
+
+    /**
+     * Marks a tile as taken by a wall, keeping the occupancy bitmap in step with WALLS.
+     *
+     * @param c The position of the wall.
+     */
+    private void occupy(CharacterPlacement c) {
+        WALLS.add(c);
+        int index = c.x * HEIGHT + c.y;
+        occupied[index >>> 6] |= 1L << index;
+    }
+
+    /**
+     * Checks if a tile is taken by a wall. Positions outside the world are never taken.
+     *
+     * @param x The x-coordinate of the tile.
+     * @param y The y-coordinate of the tile.
+     * @return true if a wall has been placed at (x, y), false otherwise.
+     */
+    private boolean isOccupied(int x, int y) {
+        if (x < 0 || x >= WIDTH || y < 0 || y >= HEIGHT) {
+            return false;
+        }
+        int index = x * HEIGHT + y;
+        return (occupied[index >>> 6] & (1L << index)) != 0;
     }
 
     private static class CharacterPlacement {
@@ -183,12 +223,18 @@ public class Room {
         }
 
         /**
-         * Generates a hash code for this character placement.
+         * Generates a hash code for this character placement. Placements with y from 0 to
+         * 99 keep the original x * 100 + y, which decides the order tileRemover visits
+         * tiles in and so the worlds existing seeds generate. Taller worlds would make
+         * that collide, (x, y + 100) with (x + 1, y), so the other rows use a wider stride.
          *
          * @return The hash code.
          */
         public int hashCode() {
-            return (this.x * ONEHUNDRED + this.y);
+            if (this.y >= 0 && this.y < ONEHUNDRED) {
+                return (this.x * ONEHUNDRED + this.y);
+            }
+            return this.x * WIDESTRIDE + this.y;
         }
     }
 
@@ -217,7 +263,7 @@ public class Room {
      * @param y   The height of the room.
      * @param path The path of the room's connection.
      */
-    private static void createA(TETile[][] t, CharacterPlacement c, int x, int y, String path) {
+    private void createA(TETile[][] t, CharacterPlacement c, int x, int y, String path) {
         boolean verify = false;
 
         if (path == null) {
@@ -246,24 +292,17 @@ public class Room {
      * @param y The height of the room.
      * @return true if a room can be created, false otherwise.
      */
-    private static boolean up(CharacterPlacement c, int x, int y) {
+    private boolean up(CharacterPlacement c, int x, int y) {
         boolean barrier = !(c.x + x < WIDTH && c.y + y < HEIGHT);
         boolean sameArea = false;
 
-        if (WALLS == null) {
-            return barrier;
-        }
-        for (int i = 1; i < x; i++) {
+        for (int i = 1; i < x && !sameArea; i++) {
             for (int j = 1; j < y; j++) {
-                CharacterPlacement latest = c.moving(i, j);
-                if (WALLS.contains(latest)) {
+                if (isOccupied(c.x + i, c.y + j)) {
                     sameArea = true;
                     break;
                 }
             }
-            if (sameArea) {
-                break;
-            }
         }
         return (barrier || sameArea);
     }
@@ -276,23 +315,17 @@ public class Room {
      * @param y The height of the room.
      * @return true if a room can be created, false otherwise.
      */
-    private static boolean down(CharacterPlacement c, int x, int y) {
-        ArrayList<CharacterPlacement> allWall = WALLS;
+    private boolean down(CharacterPlacement c, int x, int y) {
         boolean barrier = !(c.x + x < WIDTH && c.y - y > 0);
         boolean sameArea = false;
 
-        for (int i = 0; i < x; i++) {
+        for (int i = 0; i < x && !sameArea; i++) {
             for (int j = 1; j < y; j++) {
-                CharacterPlacement latest = c.moving(i, -j);
-                if (WALLS.contains(latest)) {
-
+                if (isOccupied(c.x + i, c.y - j)) {
                     sameArea = true;
                     break;
                 }
             }
-            if (sameArea) {
-                break;
-            }
         }
         return (barrier || sameArea);
     }
@@ -305,21 +338,17 @@ public class Room {
      * @param y The height of the room.
      * @return true if a room can be created, false otherwise.
      */
-    private static boolean left(CharacterPlacement c, int x, int y) {
+    private boolean left(CharacterPlacement c, int x, int y) {
         boolean barrier = !(c.x - x > 0 && c.y + y < HEIGHT);
         boolean sameArea = false;
 
-        for (int i = 1; i < x; i++) {
+        for (int i = 1; i < x && !sameArea; i++) {
             for (int j = 0; j < y; j++) {
-                CharacterPlacement latest = c.moving(-i, j);
-                if (WALLS.contains(latest)) {
+                if (isOccupied(c.x - i, c.y + j)) {
                     sameArea = true;
                     break;
                 }
             }
-            if (sameArea) {
-                break;
-            }
         }
         return (barrier || sameArea);
     }
@@ -330,7 +359,7 @@ public class Room {
      * @param t The 2D tile array representing the game world.
      * @param c The character placement of the room.
      */
-    public static void roomCreator(TETile[][] t, CharacterPlacement c) {
+    public void roomCreator(TETile[][] t, CharacterPlacement c) {
         String path;
         if (wasVertical()) {
             path = vertical(t, c);
@@ -357,7 +386,7 @@ public class Room {
      *
      * @param t The 2D tile array representing the game world.
      */
-    private static void starterArea(TETile[][] t) {
+    private void starterArea(TETile[][] t) {
         CharacterPlacement c = new CharacterPlacement(RANDOM.nextInt(WIDTH / 2) + 2, RANDOM.nextInt(HEIGHT / 2) + 2);
         String path = "up";
         int x = RANDOM.nextInt(FIVE) + FIVE;
@@ -372,7 +401,7 @@ public class Room {
      * @param t The 2D tile array representing the game world.
      * @param c The character placement of the hallway.
      */
-    public static void hallWayCreator(TETile[][] t, CharacterPlacement c) {
+    public void hallWayCreator(TETile[][] t, CharacterPlacement c) {
         if (ID == 0 && c == null) {
             capacity = true;
         } else {
@@ -421,17 +450,17 @@ public class Room {
      * @param c        The character placement of the starting position.
      * @param rowLength The length of the row to create.
      */
-    public static void rowCreator(TETile[][] t, CharacterPlacement c, int rowLength) {
+    public void rowCreator(TETile[][] t, CharacterPlacement c, int rowLength) {
         t[c.x][c.y] = Tileset.MY_WALL;
         WALL.add(c);
-        WALLS.add(c);
+        occupy(c);
 
         for (int i = 1; i < rowLength - 1; i++) {
             t[c.x + i][c.y] = Tileset.MY_FLOOR;
         }
         CharacterPlacement temp = c.moving(rowLength - 1, 0);
         WALL.add(temp);
-        WALLS.add(temp);
+        occupy(temp);
         t[temp.x][temp.y] = Tileset.MY_WALL;
     }
 
@@ -442,11 +471,11 @@ public class Room {
      * @param c      The character placement of the starting position.
      * @param length The length of the row to create.
      */
-    public static void rowWallCreator(TETile[][] t, CharacterPlacement c, int length) {
+    public void rowWallCreator(TETile[][] t, CharacterPlacement c, int length) {
         CharacterPlacement temp = c;
         for (int i = 0; i < length; i++) {
             WALL.add(temp);
-            WALLS.add(temp);
+            occupy(temp);
             t[c.x + i][c.y] = Tileset.MY_WALL;
             temp = temp.moving(1, 0);
         }
@@ -461,7 +490,7 @@ public class Room {
      * @param x The width of the room.
      * @param y The height of the room.
      */
-    private static void roomCreatorB(TETile[][] t, CharacterPlacement c, int x, int y) {
+    private void roomCreatorB(TETile[][] t, CharacterPlacement c, int x, int y) {
         rowWallCreator(t, c, x);
         for (int i = 1; i < y - 1; i++) {
             CharacterPlacement shifted = c.moving(0, i);
@@ -480,7 +509,7 @@ public class Room {
      * @param y    The height of the room.
      * @param move The direction of the room's connection.
      */
-    private static void roomCreatorA(TETile[][] t, CharacterPlacement c,
+    private void roomCreatorA(TETile[][] t, CharacterPlacement c,
                                         int x, int y, String move) {
         ArrayList<CharacterPlacement> character1s = REMOVE;
         ArrayList<CharacterPlacement> last = TILES.get(ID);
@@ -546,7 +575,7 @@ public class Room {
      * @return The direction of the valid horizontal connection ("up", "down", "left", "right"),
      * or null if no valid connection is possible.
      */
-    private static String horizontal(TETile[][] t, CharacterPlacement c) {
+    private String horizontal(TETile[][] t, CharacterPlacement c) {
         if ((c.x + 1 >= WIDTH - 1)
                 || (c.x - 1 <= 1)
                 || (c.y + 1 >= HEIGHT - 1)
@@ -580,7 +609,7 @@ public class Room {
      * @param c The character placement representing the position to check for vertical extension.
      * @return A string indicating the direction of valid vertical extension ("up" or "down"), or null if not possible.
      */
-    private static String vertical(TETile[][] t, CharacterPlacement c) {
+    private String vertical(TETile[][] t, CharacterPlacement c) {
         if ((c.x + 1 >= WIDTH - 1)
                 || (c.x - 1 <= 1)
                 || (c.y + 1 >= HEIGHT - 1)
@@ -612,7 +641,7 @@ public class Room {
      *
      * @param t The 2D tile array representing the game world.
      */
-    private static void cannotCreate(TETile[][] t) {
+    private void cannotCreate(TETile[][] t) {
         ID = closest();
         CharacterPlacement position = getPosition(ID);
         ArrayList<CharacterPlacement> availTiles = TILES.get(ID);
@@ -632,7 +661,7 @@ public class Room {
     /**
      * Removes tiles that overlap between rooms and hallways.
      */
-    private static void tileRemover() {
+    private void tileRemover() {
         ArrayList<CharacterPlacement> remove = REMOVE;
         ArrayList<CharacterPlacement> walls = WALL;
         ArrayList<CharacterPlacement> last = TILES.get(ID - 1);
@@ -659,7 +688,7 @@ public class Room {
      * @param c   The current position.
      * @param room The room identifier.
      */
-    private static void restoreParameter(int x, int y, CharacterPlacement c, int room) {
+    private void restoreParameter(int x, int y, CharacterPlacement c, int room) {
         SIZES.add(0, x);
         SIZES.add(1, y);
         SIZES.add(2, room);
@@ -678,7 +707,7 @@ public class Room {
      *
      * @param c The tile to be removed.
      */
-    private static void newTileRemover(CharacterPlacement c) {
+    private void newTileRemover(CharacterPlacement c) {
         ArrayList<CharacterPlacement> list = TILES.get(ID);
         list.remove(c);
     }
@@ -689,7 +718,7 @@ public class Room {
      * @param c The current position.
      * @return The position of the created area.
      */
-    private static CharacterPlacement createAreaForRoom(TETile[][] t, CharacterPlacement c) {
+    private CharacterPlacement createAreaForRoom(TETile[][] t, CharacterPlacement c) {
         int currW = horizontalSize(ID);
         int currH = verticalSize(ID);
 
@@ -724,7 +753,7 @@ public class Room {
      * @param c The current position.
      * @return The position of the new hallway.
      */
-    private static CharacterPlacement newHallWay(CharacterPlacement c) {
+    private CharacterPlacement newHallWay(CharacterPlacement c) {
         int currWidth = horizontalSize(ID);
         int currHeight = verticalSize(ID);
 
@@ -754,7 +783,7 @@ public class Room {
      * @param p The current position.
      * @return The position of the new hallway.
      */
-    private static CharacterPlacement newHallway2(TETile[][] t, CharacterPlacement p) {
+    private CharacterPlacement newHallway2(TETile[][] t, CharacterPlacement p) {
         int currWidth = horizontalSize(ID);
         int currHeight = verticalSize(ID);
         CharacterPlacement returnP;
@@ -787,7 +816,7 @@ public class Room {
      *
      * @param t The 2D array representing the game world.
      */
-    private static void roomConnection(TETile[][] t) {
+    private void roomConnection(TETile[][] t) {
         for (CharacterPlacement position : WALLS) {
             if (canConnectHorizontally(t, position)) {
                 connectHorizontally(t, position);
@@ -808,7 +837,7 @@ public class Room {
      * @param position The current position.
      * @return true if a horizontal connection is possible, false otherwise.
      */
-    private static boolean canConnectHorizontally(TETile[][] t, CharacterPlacement position) {
+    private boolean canConnectHorizontally(TETile[][] t, CharacterPlacement position) {
         return t[position.x + 1][position.y].equals(Tileset.MY_FLOOR)
                 && t[position.x - 1][position.y].equals(Tileset.MY_FLOOR);
     }
@@ -819,7 +848,7 @@ public class Room {
      * @param t        The 2D array representing the game world.
      * @param position The current position.
      */
-    private static void connectHorizontally(TETile[][] t, CharacterPlacement position) {
+    private void connectHorizontally(TETile[][] t, CharacterPlacement position) {
         t[position.x][position.y] = Tileset.MY_FLOOR;
     }
 
@@ -831,7 +860,7 @@ public class Room {
      * @return true if a vertical connection is possible, false otherwise.
      */
 
-    private static boolean canConnectVertically(TETile[][] t, CharacterPlacement position) {
+    private boolean canConnectVertically(TETile[][] t, CharacterPlacement position) {
         return t[position.x][position.y + 1].equals(Tileset.MY_FLOOR)
                 && t[position.x][position.y - 1].equals(Tileset.MY_FLOOR);
     }
@@ -842,7 +871,7 @@ public class Room {
      * @param t        The 2D array representing the game world.
      * @param position The current position.
      */
-    private static void connectVertically(TETile[][] t, CharacterPlacement position) {
+    private void connectVertically(TETile[][] t, CharacterPlacement position) {
         t[position.x][position.y] = Tileset.MY_FLOOR;
     }
 
@@ -853,7 +882,7 @@ public class Room {
      * @param position The current position.
      * @return true if a diagonal connection along the X-axis is possible, false otherwise.
      */
-    private static boolean canConnectDiagonallyX(TETile[][] t, CharacterPlacement position) {
+    private boolean canConnectDiagonallyX(TETile[][] t, CharacterPlacement position) {
         return t[position.x + 1][position.y].equals(Tileset.MY_FLOOR)
                 && t[position.x - 1][position.y].equals(Tileset.MY_WALL)
                 && t[position.x - 2][position.y].equals(Tileset.MY_FLOOR);
@@ -866,7 +895,7 @@ public class Room {
      * @param position The current position.
      */
 
-    private static void connectDiagonallyX(TETile[][] t, CharacterPlacement position) {
+    private void connectDiagonallyX(TETile[][] t, CharacterPlacement position) {
         t[position.x][position.y] = Tileset.MY_FLOOR;
         t[position.x - 1][position.y] = Tileset.MY_FLOOR;
     }
@@ -878,7 +907,7 @@ public class Room {
      * @param position The current position.
      * @return true if a diagonal connection along the Y-axis is possible, false otherwise.
      */
-    private static boolean canConnectDiagonallyY(TETile[][] t, CharacterPlacement position) {
+    private boolean canConnectDiagonallyY(TETile[][] t, CharacterPlacement position) {
         return t[position.x][position.y + 1].equals(Tileset.MY_FLOOR)
                 && t[position.x][position.y - 1].equals(Tileset.MY_WALL)
                 && t[position.x][position.y - 2].equals(Tileset.MY_FLOOR);
@@ -890,18 +919,49 @@ public class Room {
      * @param t        The 2D array representing the game world.
      * @param position The current position.
      */
-    private static void connectDiagonallyY(TETile[][] t, CharacterPlacement position) {
+    private void connectDiagonallyY(TETile[][] t, CharacterPlacement position) {
         t[position.x][position.y] = Tileset.MY_FLOOR;
         t[position.x][position.y - 1] = Tileset.MY_FLOOR;
     }
 
+    /**
+     * Generates a complete world for the given seed on a fresh board. Each call uses
+     * its own Room, so it is safe to call from several threads at once.
+     *
+     * @param seed   The random seed for world generation.
+     * @param width  The width of the game world.
+     * @param height The height of the game world.
+     * @param total  The total number of rooms and hallways to generate.
+     * @return The 2D array representing the generated world.
+     */
+    public static TETile[][] generate(long seed, int width, int height, int total) {
+        return generate(Rng.legacy(seed), width, height, total);
+    }
+
+    /**
+     * Generates a complete world drawing from the given generator, which must not be used
+     * by another thread at the same time.
+     *
+     * @param random The generator for world generation.
+     * @param width  The width of the game world.
+     * @param height The height of the game world.
+     * @param total  The total number of rooms and hallways to generate.
+     * @return The 2D array representing the generated world.
+     */
+    public static TETile[][] generate(Rng random, int width, int height, int total) {
+        TETile[][] world = new TETile[width][height];
+        emptyBoard(world);
+        new Room(random, width, height).drawWorld(world, total);
+        return world;
+    }
+
     /**
      * Draws the entire game world by generating rooms and hallways.
      *
      * @param t     The 2D array representing the game world.
      * @param total The total number of rooms and hallways to generate.
      */
-    public static void drawWorld(TETile[][] t, int total) {
+    public void drawWorld(TETile[][] t, int total) {
         starterArea(t);
         while (TOTAL < total) {
             if (!capacity) {
@@ -931,4 +991,38 @@ public class Room {
         }
         roomConnection(t);
     }
+
+    /**
+     * Returns the number of rooms generated so far, the starting room included.
+     *
+     * @return The number of rooms.
+     */
+    public int roomCount() {
+        return countAreas(0);
+    }
+
+    /**
+     * Returns the number of hallways generated so far.
+     *
+     * @return The number of hallways.
+     */
+    public int hallwayCount() {
+        return countAreas(1);
+    }
+
+    /**
+     * Counts the generated areas of one kind, as recorded by restoreParameter.
+     *
+     * @param room 0 for rooms, 1 for hallways.
+     * @return The number of areas of that kind.
+     */
+    private int countAreas(int room) {
+        int count = 0;
+        for (ArrayList<Integer> sizes : ROOMS) {
+            if (sizes.get(2) == room) {
+                count++;
+            }
+        }
+        return count;
+    }
 }
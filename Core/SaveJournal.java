@@ -0,0 +1,89 @@
+package byow.Core;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.CRC32C;
+
+/**
+ * Reads the keys of a game saved by older versions to saved.journal, an append-only log
+ * of the keys typed, so that the game can be moved to a CommandLog. Nothing is written to
+ * a journal anymore.
+ *
+ * The file starts with a header holding a magic number, the format version, the seed
+ * of the world, a random id for the journal and a checksum of the header. After it come
+ * records, each holding the keys typed between two saves: the length of the keys in
+ * bytes, a checksum of the keys and the keys themselves, encoded as UTF-8. A record cut
+ * short by a crash fails its checksum, and reading stops there.
+ * Throws IllegalArgumentException in case of problems, like Utils.
+ */
+final class SaveJournal {
+    private static final int MAGIC = 0x50494B41;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 28;
+
+    private SaveJournal() {
+    }
+
+    /**
+     * Reads the keys saved in a journal, checking the header and every record. Reading
+     * stops at the first record that is incomplete or fails its checksum.
+     *
+     * @param file The journal file.
+     * @return The keys, in the order they were typed.
+     */
+    static String read(File file) {
+        if (!file.isFile()) {
+            throw new IllegalArgumentException("must be a normal file");
+        }
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file.toPath()))) {
+            DataInputStream data = new DataInputStream(in);
+            byte[] header = new byte[HEADER_SIZE];
+            data.readFully(header);
+            ByteBuffer fields = ByteBuffer.wrap(header);
+            if (fields.getInt() != MAGIC || fields.getInt() != VERSION
+                    || fields.getInt(HEADER_SIZE - 4) != checksum(header, 0, HEADER_SIZE - 4)) {
+                throw new IllegalArgumentException("not a valid save journal: " + file);
+            }
+
+            StringBuilder input = new StringBuilder();
+            byte[] buffer = new byte[0];
+            while (true) {
+                int length;
+                int sum;
+                try {
+                    length = data.readInt();
+                    sum = data.readInt();
+                    if (length < 0 || length > file.length()) {
+                        break;
+                    }
+                    if (buffer.length < length) {
+                        buffer = new byte[Math.max(length, buffer.length * 2)];
+                    }
+                    data.readFully(buffer, 0, length);
+                } catch (EOFException excp) {
+                    break;
+                }
+                if (sum != checksum(buffer, 0, length)) {
+                    break;
+                }
+                input.append(new String(buffer, 0, length, StandardCharsets.UTF_8));
+            }
+            return input.toString();
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+    }
+
+    private static int checksum(byte[] bytes, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+}
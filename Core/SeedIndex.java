@@ -0,0 +1,292 @@
+package byow.Core;
+
+import byow.TileEngine.Tileset;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+/**
+ * An index of seeds and the worlds they generate, for choosing seeds ahead of time
+ * without playing them. Building the index generates the world of every seed in a range
+ * on every core, places the avatar and exit as Engine does, and records the number of
+ * floor tiles, rooms and hallways, how many tiles can reach the exit and the length of
+ * the shortest path from the avatar to the exit.
+ *
+ * The index file holds a header with a magic number, the format version, the world size,
+ * the number of rooms and hallways per world and the number of records, followed by one
+ * fixed-size record per seed, sorted by path length and then by seed, and a checksum.
+ * It is read through a memory-mapped FileChannel, and the seeds with a path length in a
+ * range are found with a binary search. Throws IllegalArgumentException in case of
+ * problems, like Utils.
+ *
+ * Run as a program to build or query an index:
+ *   SeedIndex build FROM TO FILE
+ *   SeedIndex query FILE MINPATH [MAXPATH]
+ */
+public class SeedIndex {
+    private static final int MAGIC = 0x50494B49;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 24;
+    private static final int RECORD_SIZE = 24;
+    // The index is written from one buffer and mapped as one, so its size must fit in an int
+    private static final int MAX_SEEDS = (Integer.MAX_VALUE - HEADER_SIZE - 4) / RECORD_SIZE;
+    // Rooms and hallways per world, as in Engine.createWorld
+    private static final int TOTAL = 200;
+
+    private static final int SEED = 0;
+    private static final int PATH = 8;
+    private static final int FLOORS = 12;
+    private static final int REACHABLE = 16;
+    private static final int ROOMS = 20;
+    private static final int HALLWAYS = 22;
+
+    private final MappedByteBuffer map;
+    private final int size;
+
+    private SeedIndex(MappedByteBuffer map, int size) {
+        this.map = map;
+        this.size = size;
+    }
+
+    /**
+     * Generates the worlds for the seeds from (inclusive) to (exclusive) and writes their
+     * index, replacing any index already at file. An index holds at most about 89 million
+     * seeds, since it must fit in one buffer.
+     *
+     * @param from The first seed.
+     * @param to   The seed after the last one.
+     * @param file The index file.
+     */
+    public static void build(long from, long to, File file) {
+        // A negative difference means to is before from, or the subtraction overflowed
+        if (to - from > MAX_SEEDS || (to > from && to - from < 0)) {
+            throw new IllegalArgumentException("an index holds at most " + MAX_SEEDS + " seeds: ["
+                    + from + ", " + to + ")");
+        }
+        long[] seeds = WorldBatch.range(from, to);
+        int n = seeds.length;
+        int[] paths = new int[n];
+        int[] floors = new int[n];
+        int[] reachable = new int[n];
+        int[] rooms = new int[n];
+        int[] hallways = new int[n];
+        WorldBatch.forEachRoom(seeds, Engine.WIDTH, Engine.HEIGHT, TOTAL, (index, seed, room, world) -> {
+            int[] avatar = new int[2];
+            int[] exit = new int[2];
+            floors[index] = Placement.find(world, avatar, exit);
+            world[avatar[0]][avatar[1]] = Tileset.MY_AVATAR;
+            world[exit[0]][exit[1]] = Tileset.LOCKED_DOOR;
+            DistanceField distances = DistanceField.toExit(world, exit[0], exit[1]);
+            paths[index] = distances.steps(avatar[0], avatar[1]);
+            reachable[index] = distances.reachableCount();
+            rooms[index] = room.roomCount();
+            hallways[index] = room.hallwayCount();
+        });
+
+        // Sort by path length, then by position, which is the seed order
+        long[] order = new long[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = (long) (paths[i] + 1) << 32 | i;
+        }
+        Arrays.sort(order);
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + n * RECORD_SIZE + 4);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(Engine.WIDTH).putInt(Engine.HEIGHT)
+                .putInt(TOTAL).putInt(n);
+        for (long key : order) {
+            int i = (int) key;
+            buffer.putLong(seeds[i]).putInt(paths[i]).putInt(floors[i]).putInt(reachable[i])
+                    .putShort((short) rooms[i]).putShort((short) hallways[i]);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+
+        File temp = new File(file.getPath() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+        try {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+    }
+
+    /**
+     * Opens an index through a memory-mapped view of the file, checking its checksum.
+     *
+     * @param file The index file.
+     * @return The index.
+     */
+    public static SeedIndex open(File file) {
+        if (!file.isFile()) {
+            throw new IllegalArgumentException("must be a normal file");
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < HEADER_SIZE + 4 || length > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("not a valid seed index: " + file);
+            }
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            int n = map.getInt(HEADER_SIZE - 4);
+            CRC32C crc = new CRC32C();
+            crc.update(map.duplicate().position(0).limit((int) length - 4));
+            if (map.getInt(0) != MAGIC || map.getInt(4) != VERSION
+                    || (long) HEADER_SIZE + (long) n * RECORD_SIZE + 4 != length
+                    || map.getInt((int) length - 4) != (int) crc.getValue()) {
+                throw new IllegalArgumentException("not a valid seed index: " + file);
+            }
+            return new SeedIndex(map, n);
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+    }
+
+    /**
+     * Returns the number of seeds in the index.
+     *
+     * @return The number of records.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the position of the first record whose path length is at least the given
+     * one, or size() if there is none. The records from lowerBound(min) up to
+     * lowerBound(max + 1) are exactly those with a path length from min to max.
+     *
+     * @param pathLength The smallest path length.
+     * @return The position of the first such record.
+     */
+    public int lowerBound(int pathLength) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (pathLength(mid) < pathLength) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Returns the seed of a record.
+     *
+     * @param i The position of the record.
+     * @return The seed.
+     */
+    public long seed(int i) {
+        return map.getLong(offset(i) + SEED);
+    }
+
+    /**
+     * Returns the number of moves from the avatar to the exit in a record's world.
+     *
+     * @param i The position of the record.
+     * @return The path length, or -1 if the exit cannot be reached.
+     */
+    public int pathLength(int i) {
+        return map.getInt(offset(i) + PATH);
+    }
+
+    /**
+     * Returns the number of floor tiles in a record's world, before the avatar is placed.
+     *
+     * @param i The position of the record.
+     * @return The number of floors.
+     */
+    public int floors(int i) {
+        return map.getInt(offset(i) + FLOORS);
+    }
+
+    /**
+     * Returns the number of tiles in a record's world from which the exit can be reached,
+     * the exit included.
+     *
+     * @param i The position of the record.
+     * @return The number of reachable tiles.
+     */
+    public int reachable(int i) {
+        return map.getInt(offset(i) + REACHABLE);
+    }
+
+    /**
+     * Returns true if every floor tile of a record's world can reach the exit.
+     *
+     * @param i The position of the record.
+     * @return true if the world is connected.
+     */
+    public boolean connected(int i) {
+        // The floors, with the avatar on one of them, plus the exit
+        return reachable(i) == floors(i) + 1;
+    }
+
+    /**
+     * Returns the number of rooms in a record's world.
+     *
+     * @param i The position of the record.
+     * @return The number of rooms.
+     */
+    public int rooms(int i) {
+        return map.getShort(offset(i) + ROOMS);
+    }
+
+    /**
+     * Returns the number of hallways in a record's world.
+     *
+     * @param i The position of the record.
+     * @return The number of hallways.
+     */
+    public int hallways(int i) {
+        return map.getShort(offset(i) + HALLWAYS);
+    }
+
+    private int offset(int i) {
+        if (i < 0 || i >= size) {
+            throw new IllegalArgumentException("No such record: " + i);
+        }
+        return HEADER_SIZE + i * RECORD_SIZE;
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 4 && args[0].equals("build")) {
+            long start = System.nanoTime();
+            build(Long.parseLong(args[1]), Long.parseLong(args[2]), new File(args[3]));
+            System.out.printf("Indexed %d seeds in %.1f s%n", Long.parseLong(args[2]) - Long.parseLong(args[1]),
+                    (System.nanoTime() - start) / 1e9);
+        } else if ((args.length == 3 || args.length == 4) && args[0].equals("query")) {
+            SeedIndex index = open(new File(args[1]));
+            int min = Integer.parseInt(args[2]);
+            int max = args.length == 4 ? Integer.parseInt(args[3]) : Integer.MAX_VALUE - 1;
+            System.out.println("seed path floors reachable connected rooms hallways");
+            for (int i = index.lowerBound(min), end = index.lowerBound(max + 1); i < end; i++) {
+                System.out.println(index.seed(i) + " " + index.pathLength(i) + " " + index.floors(i) + " "
+                        + index.reachable(i) + " " + index.connected(i) + " " + index.rooms(i) + " "
+                        + index.hallways(i));
+            }
+        } else {
+            System.out.println("Usage: SeedIndex build FROM TO FILE | SeedIndex query FILE MINPATH [MAXPATH]");
+        }
+    }
+}
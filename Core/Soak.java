@@ -0,0 +1,198 @@
+package byow.Core;
+
+import byow.InputDemo.InputSource;
+import byow.InputDemo.RandomInputSource;
+import byow.TileEngine.TETile;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * A headless soak test that plays millions of random moves to measure throughput and to
+ * catch crashes before players do. Nothing is drawn.
+ *
+ * Every seed from 0 up starts a game and then gets a stream of random keys from
+ * RandomInputSource, restricted to the keys that are valid in a game. Engine is a static
+ * front over one GameSession and plays every key through its press method, so the seeds
+ * are played as GameSessions on every core at once, which runs the engine's rules in
+ * parallel. The report gives the keys and the moves per second over all cores, counting
+ * as moves only the keys that moved the avatar rather than walking into a wall, the
+ * nanoseconds and bytes allocated per key on one thread, and every exception with the
+ * seed and key that raised it, so it can be played again. A session that fails counts its
+ * keys, moves, time and allocation up to the key that failed.
+ *
+ * Engine's own part, copying each move into its tiles and logging it, keeps its state in
+ * static fields and cannot run in parallel, so the first few seeds are also played
+ * through Engine.interactWithInputString, one after another, with the same keys.
+ * Exceptions from Engine are reported like the others, and so is any world that ends up
+ * different from the session's. After each of those games the mouse
+ * is moved over every tile of the window and one tile beyond its edges through Engine's
+ * HUD code, which looks up the hovered tile without drawing anything. Drawing itself
+ * needs StdDraw's window and is not covered.
+ *
+ * Run as a program:
+ *   Soak SEEDS KEYS [ENGINESEEDS]
+ */
+public class Soak {
+    // The keys a player can press during a game without saving or quitting
+    private static final String MOVES = "wasd";
+    private static final int ENGINE_KEY_LIMIT = 100000;
+    private static final int REPORTED_FAILURES = 10;
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final long keys;
+    private final LongAdder pressed = new LongAdder();
+    private final LongAdder moves = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final List<String> failures = Collections.synchronizedList(new ArrayList<>());
+
+    private Soak(long keys) {
+        this.keys = keys;
+    }
+
+    /**
+     * Plays one seed as a session, recording its time, allocation and any exception.
+     */
+    private void playSession(WorldCache worlds, int index) {
+        long seed = index;
+        GameSession session = new GameSession(worlds, Engine.WIDTH, Engine.HEIGHT);
+        try {
+            press(session, menuKeys(seed));
+        } catch (RuntimeException excp) {
+            failures.add("session seed " + seed + " menu: " + excp);
+            return;
+        }
+        InputSource input = new RandomInputSource(seed, MOVES);
+        RuntimeException failure = null;
+        long key = 0;
+        long moved = 0;
+        long bytesBefore = THREADS.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        try {
+            for (; key < keys; key++) {
+                if (session.press(input.getNextKey()) == GameSession.MOVED) {
+                    moved++;
+                }
+            }
+        } catch (RuntimeException excp) {
+            failure = excp;
+        }
+        nanos.add(System.nanoTime() - start);
+        bytes.add(THREADS.getCurrentThreadAllocatedBytes() - bytesBefore);
+        pressed.add(key);
+        moves.add(moved);
+        if (failure != null) {
+            failures.add("session seed " + seed + " key " + key + ": " + failure);
+        }
+    }
+
+    /**
+     * Plays one seed through Engine with the same keys as its session, hovers the mouse
+     * over the window through Engine's HUD, and compares the resulting worlds.
+     */
+    private void playEngine(WorldCache worlds, int index) {
+        long seed = index;
+        int count = (int) Math.min(keys, ENGINE_KEY_LIMIT);
+        StringBuilder input = new StringBuilder(menuKeys(seed));
+        InputSource random = new RandomInputSource(seed, MOVES);
+        for (int i = 0; i < count; i++) {
+            input.append(random.getNextKey());
+        }
+        TETile[][] world;
+        try {
+            new Engine();
+            world = Engine.interactWithInputString(input.toString());
+        } catch (RuntimeException excp) {
+            failures.add("engine seed " + seed + ": " + excp);
+            return;
+        }
+        try {
+            Engine.hoverAll();
+        } catch (RuntimeException excp) {
+            failures.add("engine seed " + seed + " HUD: " + excp);
+        }
+        GameSession session = new GameSession(worlds, Engine.WIDTH, Engine.HEIGHT);
+        press(session, input);
+        for (int x = 0; x < world.length; x++) {
+            for (int y = 0; y < world[0].length; y++) {
+                if (world[x][y] != session.tile(x, y)) {
+                    failures.add("engine seed " + seed + ": world differs from the session at " + x + ", " + y);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the keys that start the game of a seed on the menu. Depending on the seed,
+     * some of its digits are typed before "n", which Engine counts towards the seed too.
+     */
+    private static String menuKeys(long seed) {
+        String digits = Long.toString(seed);
+        int split = (int) (seed % (digits.length() + 1));
+        return digits.substring(0, split) + "n" + digits.substring(split) + "s";
+    }
+
+    private static void press(GameSession session, CharSequence input) {
+        for (int i = 0; i < input.length(); i++) {
+            session.press(input.charAt(i));
+        }
+    }
+
+    /**
+     * Soaks the seeds on every core, then checks the first engineSeeds of them against
+     * Engine, and prints the report.
+     *
+     * @param seeds       The number of seeds to play.
+     * @param keys        The number of random moves per seed.
+     * @param engineSeeds The number of seeds to also play through Engine.
+     * @return The number of failures.
+     */
+    public static int run(int seeds, long keys, int engineSeeds) {
+        Soak soak = new Soak(keys);
+        // Nothing is kept: every seed is played once
+        WorldCache worlds = new WorldCache(0, null);
+        long start = System.nanoTime();
+        IntStream.range(0, seeds).parallel().forEach(i -> soak.playSession(worlds, i));
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long pressed = soak.pressed.sum();
+        long moves = soak.moves.sum();
+        System.out.printf("%d seeds x %d keys on %d threads: %.1f s, %.0f keys/s, %.0f moves/s (%d of %d keys moved)%n",
+                seeds, keys, Runtime.getRuntime().availableProcessors(), seconds, pressed / seconds,
+                moves / seconds, moves, pressed);
+        System.out.printf("per key on one thread: %.1f ns, %.3f bytes allocated%n",
+                soak.nanos.sum() / (double) Math.max(1, pressed), soak.bytes.sum() / (double) Math.max(1, pressed));
+
+        int checked = Math.min(engineSeeds, seeds);
+        for (int i = 0; i < checked; i++) {
+            soak.playEngine(worlds, i);
+        }
+        System.out.println(checked + " seeds checked against Engine with up to "
+                + Math.min(keys, ENGINE_KEY_LIMIT) + " keys each, and the HUD hovered over the whole window");
+
+        List<String> failures = soak.failures;
+        System.out.println(failures.size() + " failures");
+        for (int i = 0; i < Math.min(failures.size(), REPORTED_FAILURES); i++) {
+            System.out.println("  " + failures.get(i));
+        }
+        return failures.size();
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2 || args.length > 3) {
+            System.out.println("Usage: Soak SEEDS KEYS [ENGINESEEDS]");
+            return;
+        }
+        int failures = run(Integer.parseInt(args[0]), Long.parseLong(args[1]),
+                args.length == 3 ? Integer.parseInt(args[2]) : 10);
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package byow.Core;
+
+import byow.TileEngine.TETile;
+import byow.TileEngine.TileGrid;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Generates the worlds for many seeds at once, splitting the seeds across every core
+ * with a fork/join pool. Each world comes from its own Room, so the world for a seed
+ * is exactly the one a single-threaded Room.drawWorld call would produce.
+ */
+public class WorldBatch {
+    private static final int THRESHOLD = 4;
+
+    /**
+     * Receives each world as soon as it has been generated. Called from worker
+     * threads, so implementations must be thread-safe.
+     */
+    public interface Visitor {
+        /**
+         * @param index The position of the seed in the batch.
+         * @param seed  The seed the world was generated from.
+         * @param world The generated world.
+         */
+        void visit(int index, long seed, TETile[][] world);
+    }
+
+    /**
+     * Like Visitor, but also receives the Room that generated the world, for callers
+     * that need to know how the world was built. Called from worker threads.
+     */
+    public interface RoomVisitor {
+        /**
+         * @param index The position of the seed in the batch.
+         * @param seed  The seed the world was generated from.
+         * @param room  The Room that generated the world.
+         * @param world The generated world.
+         */
+        void visit(int index, long seed, Room room, TETile[][] world);
+    }
+
+    private WorldBatch() {
+    }
+
+    /**
+     * Generates a world for every seed and returns them in the same order as the seeds.
+     *
+     * @param seeds  The seeds to generate worlds for.
+     * @param width  The width of each world.
+     * @param height The height of each world.
+     * @param total  The total number of rooms and hallways in each world.
+     * @return The generated worlds, one per seed.
+     */
+    public static TETile[][][] generate(long[] seeds, int width, int height, int total) {
+        TETile[][][] worlds = new TETile[seeds.length][][];
+        forEach(seeds, width, height, total, (index, seed, world) -> worlds[index] = world);
+        return worlds;
+    }
+
+    /**
+     * Generates a world for every seed and returns them as compact grids, in the same
+     * order as the seeds. Use this when many worlds need to stay in memory at once.
+     *
+     * @param seeds  The seeds to generate worlds for.
+     * @param width  The width of each world.
+     * @param height The height of each world.
+     * @param total  The total number of rooms and hallways in each world.
+     * @return The generated worlds, one per seed.
+     */
+    public static TileGrid[] generateGrids(long[] seeds, int width, int height, int total) {
+        TileGrid[] grids = new TileGrid[seeds.length];
+        forEach(seeds, width, height, total, (index, seed, world) -> grids[index] = TileGrid.fromTiles(world));
+        return grids;
+    }
+
+    /**
+     * Generates a world for every seed and hands each one to the visitor, without
+     * keeping the worlds around afterwards. Returns once every seed has been visited.
+     *
+     * @param seeds   The seeds to generate worlds for.
+     * @param width   The width of each world.
+     * @param height  The height of each world.
+     * @param total   The total number of rooms and hallways in each world.
+     * @param visitor The visitor receiving each generated world.
+     */
+    public static void forEach(long[] seeds, int width, int height, int total, Visitor visitor) {
+        forEachRoom(seeds, width, height, total, (index, seed, room, world) -> visitor.visit(index, seed, world));
+    }
+
+    /**
+     * Same as forEach, but also hands the visitor the Room each world came from.
+     *
+     * @param seeds   The seeds to generate worlds for.
+     * @param width   The width of each world.
+     * @param height  The height of each world.
+     * @param total   The total number of rooms and hallways in each world.
+     * @param visitor The visitor receiving each Room and generated world.
+     */
+    public static void forEachRoom(long[] seeds, int width, int height, int total, RoomVisitor visitor) {
+        ForkJoinPool.commonPool().invoke(new Batch(seeds, 0, seeds.length, width, height, total, visitor));
+    }
+
+    /**
+     * Returns the seeds from (inclusive) to (exclusive).
+     *
+     * @param from The first seed.
+     * @param to   The seed after the last one.
+     * @return The seeds in the range.
+     * @throws IllegalArgumentException if to is before from or the range holds more seeds
+     * than an array can.
+     */
+    public static long[] range(long from, long to) {
+        long count = to - from;
+        // A negative count means to is before from, or the subtraction overflowed
+        if (to < from || count < 0 || count > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("invalid seed range: [" + from + ", " + to + ")");
+        }
+        long[] seeds = new long[(int) count];
+        for (int i = 0; i < seeds.length; i++) {
+            seeds[i] = from + i;
+        }
+        return seeds;
+    }
+
+    private static class Batch extends RecursiveAction {
+        // Batches are never serialized, but RecursiveAction is Serializable
+        private static final long serialVersionUID = 1L;
+
+        private final long[] seeds;
+        private final int lo;
+        private final int hi;
+        private final int width;
+        private final int height;
+        private final int total;
+        private final RoomVisitor visitor;
+
+        Batch(long[] seeds, int lo, int hi, int width, int height, int total, RoomVisitor visitor) {
+            this.seeds = seeds;
+            this.lo = lo;
+            this.hi = hi;
+            this.width = width;
+            this.height = height;
+            this.total = total;
+            this.visitor = visitor;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= THRESHOLD) {
+                for (int i = lo; i < hi; i++) {
+                    TETile[][] world = new TETile[width][height];
+                    Room.emptyBoard(world);
+                    Room room = new Room(seeds[i], width, height);
+                    room.drawWorld(world, total);
+                    visitor.visit(i, seeds[i], room, world);
+                }
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new Batch(seeds, lo, mid, width, height, total, visitor),
+                    new Batch(seeds, mid, hi, width, height, total, visitor));
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package byow.Core;
+
+import byow.TileEngine.TETile;
+import byow.TileEngine.TileGrid;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.CRC32C;
+
+/**
+ * A cache of generated worlds, so that a seed that has been played before does not have
+ * to be generated again. Each entry holds the world with its avatar and exit placed, as a
+ * TileGrid of one byte per tile, plus the avatar and exit positions.
+ *
+ * Entries live in memory up to a budget in bytes, and the least recently used entries are
+ * evicted first. If a directory is given, evicted entries are written there, one file per
+ * world with a checksum, and a miss in memory looks there before giving up. Like the save
+ * journal, files are written to a temporary file and renamed into place; a damaged file is
+ * treated as a miss. All methods are synchronized, so a cache can be shared by threads.
+ */
+public class WorldCache {
+    private static final int MAGIC = 0x50494B57;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 44;
+    // Rough memory taken by an entry besides its tiles: the key, the entry, the grid and the map node
+    private static final int ENTRY_OVERHEAD = 160;
+
+    private final long budget;
+    private final File directory;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long used;
+    private long hits;
+    private long misses;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param budget    The most bytes the entries in memory may take; 0 keeps nothing in memory.
+     * @param directory The directory for evicted entries, or null to drop them.
+     */
+    public WorldCache(long budget, File directory) {
+        this.budget = budget;
+        this.directory = directory;
+    }
+
+    /**
+     * Copies a cached world into the given array, along with its avatar and exit positions.
+     *
+     * @param seed   The seed of the world.
+     * @param total  The number of rooms and hallways the world was generated with.
+     * @param world  The array to copy the world into, which sets the width and height.
+     * @param avatar The array to store the avatar's coordinates.
+     * @param exit   The array to store the exit's coordinates.
+     * @return true if the world was cached, false if nothing was copied.
+     */
+    public synchronized boolean load(long seed, int total, TETile[][] world, int[] avatar, int[] exit) {
+        Key key = new Key(seed, world.length, world[0].length, total);
+        Entry entry = entries.get(key);
+        if (entry == null && directory != null) {
+            entry = read(file(key), key);
+            if (entry != null) {
+                put(key, entry);
+            }
+        }
+        if (entry == null) {
+            misses++;
+            return false;
+        }
+        hits++;
+        entry.grid.copyInto(world);
+        avatar[0] = entry.avatarX;
+        avatar[1] = entry.avatarY;
+        exit[0] = entry.exitX;
+        exit[1] = entry.exitY;
+        return true;
+    }
+
+    /**
+     * Adds a world to the cache, replacing any entry for the same seed, size and total.
+     *
+     * @param seed   The seed of the world.
+     * @param total  The number of rooms and hallways the world was generated with.
+     * @param world  The world, with the avatar and exit placed.
+     * @param avatar The avatar's coordinates.
+     * @param exit   The exit's coordinates.
+     */
+    public synchronized void store(long seed, int total, TETile[][] world, int[] avatar, int[] exit) {
+        Key key = new Key(seed, world.length, world[0].length, total);
+        put(key, new Entry(TileGrid.fromTiles(world), avatar[0], avatar[1], exit[0], exit[1]));
+    }
+
+    /**
+     * Returns the number of loads that found their world, in memory or on disk.
+     *
+     * @return The number of hits.
+     */
+    public synchronized long hits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of loads that did not find their world.
+     *
+     * @return The number of misses.
+     */
+    public synchronized long misses() {
+        return misses;
+    }
+
+    /**
+     * Returns the bytes taken by the entries in memory, as counted against the budget.
+     *
+     * @return The bytes used.
+     */
+    public synchronized long used() {
+        return used;
+    }
+
+    /**
+     * Puts an entry in memory and evicts the least recently used entries until the
+     * entries fit in the budget again, writing them to the directory if there is one.
+     */
+    private void put(Key key, Entry entry) {
+        Entry old = entries.put(key, entry);
+        if (old != null) {
+            used -= old.size();
+        }
+        used += entry.size();
+        Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+        while (used > budget && eldest.hasNext()) {
+            Map.Entry<Key, Entry> evicted = eldest.next();
+            eldest.remove();
+            used -= evicted.getValue().size();
+            if (directory != null) {
+                write(file(evicted.getKey()), evicted.getKey(), evicted.getValue());
+            }
+        }
+    }
+
+    private File file(Key key) {
+        return new File(directory, "world-" + key.seed + "-" + key.width + "x" + key.height
+                + "-" + key.total + ".bin");
+    }
+
+    /**
+     * Writes an entry to its file. A failed write only means a later miss, so it is ignored.
+     */
+    private static void write(File file, Key key, Entry entry) {
+        byte[] tiles = entry.grid.ids();
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + tiles.length + 4);
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(key.seed).putInt(key.width).putInt(key.height)
+                .putInt(key.total).putInt(entry.avatarX).putInt(entry.avatarY)
+                .putInt(entry.exitX).putInt(entry.exitY).put(tiles);
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+
+        File temp = new File(file.getPath() + ".tmp");
+        try {
+            Files.write(temp.toPath(), buffer.array());
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException excp) {
+            temp.delete();
+        }
+    }
+
+    /**
+     * Reads an entry from its file.
+     *
+     * @return The entry, or null if there is no file or it is damaged or for another world.
+     */
+    private static Entry read(File file, Key key) {
+        if (!file.isFile()) {
+            return null;
+        }
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file.toPath());
+        } catch (IOException excp) {
+            return null;
+        }
+        int tiles = key.width * key.height;
+        if (bytes.length != HEADER_SIZE + tiles + 4) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, 0, bytes.length - 4);
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.getLong() != key.seed
+                || buffer.getInt() != key.width || buffer.getInt() != key.height
+                || buffer.getInt() != key.total || buffer.getInt(bytes.length - 4) != (int) crc.getValue()) {
+            return null;
+        }
+        int avatarX = buffer.getInt();
+        int avatarY = buffer.getInt();
+        int exitX = buffer.getInt();
+        int exitY = buffer.getInt();
+        byte[] ids = new byte[tiles];
+        buffer.get(ids);
+        return new Entry(new TileGrid(key.width, key.height, ids), avatarX, avatarY, exitX, exitY);
+    }
+
+    private static final class Key {
+        private final long seed;
+        private final int width;
+        private final int height;
+        private final int total;
+
+        Key(long seed, int width, int height, int total) {
+            this.seed = seed;
+            this.width = width;
+            this.height = height;
+            this.total = total;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return seed == other.seed && width == other.width && height == other.height
+                    && total == other.total;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(seed, width, height, total);
+        }
+    }
+
+    private static final class Entry {
+        private final TileGrid grid;
+        private final int avatarX;
+        private final int avatarY;
+        private final int exitX;
+        private final int exitY;
+
+        Entry(TileGrid grid, int avatarX, int avatarY, int exitX, int exitY) {
+            this.grid = grid;
+            this.avatarX = avatarX;
+            this.avatarY = avatarY;
+            this.exitX = exitX;
+            this.exitY = exitY;
+        }
+
+        long size() {
+            return grid.ids().length + ENTRY_OVERHEAD;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package byow.Core;
+
+import byow.TileEngine.TETile;
+import byow.TileEngine.TileGrid;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * A saved copy of the world as it was at a save, so that loading does not have to
+ * regenerate the world and replay every key typed since the game started.
+ *
+ * The file holds a header with a magic number, the format version, the seed, the id
+ * of the command log it belongs to, the length of that log when it was taken, the
+ * world size and the avatar and exit positions. The tiles follow as one TileGrid id
+ * byte each, and a checksum of everything before it ends the file. A snapshot is
+ * written to a temporary file and then renamed into place, and it is read through a
+ * memory-mapped FileChannel.
+ */
+class WorldSnapshot {
+    private static final int MAGIC = 0x50494B53;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 56;
+
+    private final long seed;
+    private final long logId;
+    private final long commands;
+    private final TileGrid grid;
+    private final int[] avatar;
+    private final int[] exit;
+
+    private WorldSnapshot(long seed, long logId, long commands, TileGrid grid, int[] avatar, int[] exit) {
+        this.seed = seed;
+        this.logId = logId;
+        this.commands = commands;
+        this.grid = grid;
+        this.avatar = avatar;
+        this.exit = exit;
+    }
+
+    /**
+     * Writes a snapshot of the world, replacing any snapshot already at file.
+     *
+     * @param file     The snapshot file.
+     * @param seed     The seed of the world.
+     * @param logId    The id of the command log the game was just saved to.
+     * @param commands The length of that log.
+     * @param world    The world.
+     * @param avatar   The avatar's coordinates.
+     * @param exit     The exit's coordinates.
+     */
+    static void write(File file, long seed, long logId, long commands, TETile[][] world,
+                      int[] avatar, int[] exit) {
+        TileGrid grid = TileGrid.fromTiles(world);
+        byte[] tiles = grid.ids();
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + tiles.length + 4);
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(seed).putLong(logId).putLong(commands)
+                .putInt(grid.width()).putInt(grid.height())
+                .putInt(avatar[0]).putInt(avatar[1]).putInt(exit[0]).putInt(exit[1])
+                .put(tiles);
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+
+        File temp = new File(file.getPath() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+        try {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+    }
+
+    /**
+     * Reads a snapshot through a memory-mapped view of the file.
+     *
+     * @param file The snapshot file.
+     * @return The snapshot, or null if there is none or it is damaged.
+     */
+    static WorldSnapshot read(File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE + 4) {
+                return null;
+            }
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (map.getInt() != MAGIC || map.getInt() != VERSION) {
+                return null;
+            }
+            long seed = map.getLong();
+            long logId = map.getLong();
+            long commands = map.getLong();
+            int width = map.getInt();
+            int height = map.getInt();
+            int[] avatar = {map.getInt(), map.getInt()};
+            int[] exit = {map.getInt(), map.getInt()};
+            if (width <= 0 || height <= 0 || (long) width * height != size - HEADER_SIZE - 4) {
+                return null;
+            }
+
+            CRC32C crc = new CRC32C();
+            crc.update(map.duplicate().position(0).limit((int) size - 4));
+            if (map.getInt((int) size - 4) != (int) crc.getValue()) {
+                return null;
+            }
+            byte[] tiles = new byte[width * height];
+            map.get(tiles);
+            return new WorldSnapshot(seed, logId, commands, new TileGrid(width, height, tiles), avatar, exit);
+        } catch (IOException excp) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the seed of the saved world.
+     *
+     * @return The seed.
+     */
+    long seed() {
+        return seed;
+    }
+
+    /**
+     * Returns the id of the command log the snapshot belongs to.
+     *
+     * @return The log id.
+     */
+    long logId() {
+        return logId;
+    }
+
+    /**
+     * Returns the length of the command log when the snapshot was taken, so that only
+     * the commands after it have to be replayed.
+     *
+     * @return The length of the log.
+     */
+    long commands() {
+        return commands;
+    }
+
+    /**
+     * Returns the tiles of the saved world.
+     *
+     * @return The tiles.
+     */
+    TileGrid grid() {
+        return grid;
+    }
+
+    /**
+     * Returns the avatar's coordinates.
+     *
+     * @return The avatar's coordinates.
+     */
+    int[] avatar() {
+        return avatar;
+    }
+
+    /**
+     * Returns the exit's coordinates.
+     *
+     * @return The exit's coordinates.
+     */
+    int[] exit() {
+        return exit;
+    }
+}
@@ -1,5 +1,7 @@
 package byow.InputDemo;
 
+import edu.princeton.cs.algs4.StdDraw;
+
 /**
  * Demonstrates how a single interface can be used to provide input
  * from they keyboard, from a random sequence, from a string, or whatever else.
@@ -15,6 +17,7 @@ public class DemoInputSource {
         InputSource inputSource;
 
         if (inputType == KEYBOARD) {
+            StdDraw.text(0.3, 0.3, "press m to moo, q to quit");
             inputSource = new KeyboardInputSource();
         } else if (inputType == RANDOM) {
             inputSource = new RandomInputSource(50L);
@@ -26,7 +29,7 @@ public class DemoInputSource {
 
         while (inputSource.possibleNextInput()) {
             totalCharacters += 1;
-            char c = inputSource.getNextKey();
+            char c = Character.toUpperCase(inputSource.getNextKey());
             if (c == 'M') {
                 System.out.println("moo");
             }
@@ -1,7 +1,51 @@
 package byow.InputDemo;
 
+import java.util.concurrent.TimeUnit;
 
+/**
+ * A source of keys, such as the keyboard, a string, random letters or a network connection.
+ * Consumers can block for the next key, wait for one with a timeout, or take every key
+ * already waiting in one batch, as a game loop does once per tick. No method spins: a
+ * source that has to wait for keys parks the thread until one arrives.
+ */
 public interface InputSource {
+    /** Returned by pollKey when no key arrived in time. */
+    char NO_KEY = 0;
+
+    /**
+     * Returns the next key, waiting for it if needed.
+     * @return the key
+     */
     public char getNextKey();
+
+    /**
+     * Returns false once no more keys can come from this source.
+     * @return true if there may be another key
+     */
     public boolean possibleNextInput();
+
+    /**
+     * Returns the next key, waiting at most the given time for it. Sources that never
+     * wait, like strings, return their next key at once.
+     * @param timeout the longest time to wait
+     * @param unit the unit of the timeout
+     * @return the key, or NO_KEY if none arrived in time or none can come
+     */
+    default char pollKey(long timeout, TimeUnit unit) {
+        return possibleNextInput() ? getNextKey() : NO_KEY;
+    }
+
+    /**
+     * Copies the keys that are available without waiting into the array, as many as fit.
+     * @param keys the array to fill from index 0
+     * @return the number of keys copied
+     */
+    default int drainKeys(char[] keys) {
+        int n = 0;
+        while (n < keys.length && possibleNextInput()) {
+            keys[n] = getNextKey();
+            n += 1;
+        }
+        return n;
+    }
 }
@@ -0,0 +1,131 @@
+package byow.InputDemo;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded queue of keys between one producer thread, such as the AWT event thread, and
+ * one consumer thread, such as the game loop. Keys are stored in a ring and the two threads
+ * only share the read and write counters, so neither ever takes a lock. A consumer that has
+ * to wait for a key parks until the producer adds one or its timeout runs out, instead of
+ * spinning. Keys offered while the queue is full are dropped.
+ */
+public class KeyQueue {
+    private final char[] keys;
+    private final int mask;
+    // Keys read by the consumer and keys written by the producer since the queue was created
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private volatile Thread waiter;
+
+    /**
+     * Creates an empty queue.
+     * @param capacity the most keys the queue holds, a power of two
+     */
+    public KeyQueue(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        this.keys = new char[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Adds a key and wakes the consumer if it is waiting. Only the producer thread may call this.
+     * @param key the key
+     * @return false if the queue was full and the key was dropped
+     */
+    public boolean offer(char key) {
+        long t = tail.get();
+        if (t - head.get() == keys.length) {
+            return false;
+        }
+        keys[(int) t & mask] = key;
+        // A full write, so the consumer cannot miss the key after announcing it waits
+        tail.set(t + 1);
+        Thread w = waiter;
+        if (w != null) {
+            LockSupport.unpark(w);
+        }
+        return true;
+    }
+
+    /**
+     * Takes the next key without waiting. Only the consumer thread may call this and the
+     * methods below.
+     * @return the key, or InputSource.NO_KEY if the queue is empty
+     */
+    public char poll() {
+        long h = head.get();
+        if (h == tail.get()) {
+            return InputSource.NO_KEY;
+        }
+        char key = keys[(int) h & mask];
+        head.lazySet(h + 1);
+        return key;
+    }
+
+    /**
+     * Takes the next key, parking for at most the given time until one arrives.
+     * @param timeoutNanos the longest time to wait, in nanoseconds
+     * @return the key, or InputSource.NO_KEY if none arrived in time
+     */
+    public char poll(long timeoutNanos) {
+        char key = poll();
+        if (key != InputSource.NO_KEY || timeoutNanos <= 0) {
+            return key;
+        }
+        long deadline = System.nanoTime() + timeoutNanos;
+        waiter = Thread.currentThread();
+        try {
+            while (true) {
+                key = poll();
+                if (key != InputSource.NO_KEY) {
+                    return key;
+                }
+                long left = deadline - System.nanoTime();
+                if (left <= 0) {
+                    return InputSource.NO_KEY;
+                }
+                LockSupport.parkNanos(this, left);
+            }
+        } finally {
+            waiter = null;
+        }
+    }
+
+    /**
+     * Takes the next key, parking until one arrives.
+     * @return the key
+     */
+    public char take() {
+        char key;
+        do {
+            key = poll(Long.MAX_VALUE / 2);
+        } while (key == InputSource.NO_KEY);
+        return key;
+    }
+
+    /**
+     * Takes every key in the queue, as many as fit in the array, without waiting.
+     * @param into the array to fill from index 0
+     * @return the number of keys taken
+     */
+    public int drain(char[] into) {
+        long h = head.get();
+        int n = (int) Math.min(tail.get() - h, into.length);
+        for (int i = 0; i < n; i += 1) {
+            into[i] = keys[(int) (h + i) & mask];
+        }
+        head.lazySet(h + n);
+        return n;
+    }
+
+    /**
+     * Returns the number of keys in the queue.
+     * @return the number of keys waiting
+     */
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+}
@@ -1,27 +1,64 @@
 package byow.InputDemo;
 
+import java.awt.KeyEventDispatcher;
+import java.awt.KeyboardFocusManager;
+import java.awt.event.KeyEvent;
+import java.util.concurrent.TimeUnit;
 
-import edu.princeton.cs.algs4.StdDraw;
-
+/**
+ * Keys typed in the application's windows. A KeyEventDispatcher takes every typed key on
+ * the AWT event thread and pushes it into a KeyQueue, where the game loop picks it up, so
+ * no thread polls or spins for keys. Typed keys are consumed here and no longer reach
+ * StdDraw's own key queue; StdDraw.isKeyPressed still works.
+ */
 public class KeyboardInputSource implements InputSource {
     private static final boolean PRINT_TYPED_KEYS = false;
+    private static final int CAPACITY = 1024;
+
+    private final KeyQueue queue = new KeyQueue(CAPACITY);
+    private final KeyEventDispatcher dispatcher = this::dispatch;
+
     public KeyboardInputSource() {
-        StdDraw.text(0.3, 0.3, "press m to moo, q to quit");
+        KeyboardFocusManager.getCurrentKeyboardFocusManager().addKeyEventDispatcher(dispatcher);
+    }
+
+    /**
+     * Runs on the AWT event thread for every key event.
+     */
+    private boolean dispatch(KeyEvent e) {
+        if (e.getID() != KeyEvent.KEY_TYPED || e.getKeyChar() == KeyEvent.CHAR_UNDEFINED) {
+            return false;
+        }
+        queue.offer(e.getKeyChar());
+        return true;
+    }
+
+    /**
+     * Stops listening to the keyboard.
+     */
+    public void close() {
+        KeyboardFocusManager.getCurrentKeyboardFocusManager().removeKeyEventDispatcher(dispatcher);
     }
 
     public char getNextKey() {
-        while (true) {
-            if (StdDraw.hasNextKeyTyped()) {
-                char c = Character.toUpperCase(StdDraw.nextKeyTyped());
-                if (PRINT_TYPED_KEYS) {
-                    System.out.print(c);
-                }
-                return c;
-            }
+        char c = queue.take();
+        if (PRINT_TYPED_KEYS) {
+            System.out.print(c);
         }
+        return c;
     }
 
     public boolean possibleNextInput() {
         return true;
     }
+
+    @Override
+    public char pollKey(long timeout, TimeUnit unit) {
+        return queue.poll(unit.toNanos(timeout));
+    }
+
+    @Override
+    public int drainKeys(char[] keys) {
+        return queue.drain(keys);
+    }
 }
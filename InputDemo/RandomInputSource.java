@@ -6,15 +6,28 @@ import java.util.Random;
 
 
 public class RandomInputSource implements InputSource {
+    private static final String LETTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
     Random r;
+    private final String keys;
 
     public RandomInputSource(Long seed) {
+        this(seed, LETTERS);
+    }
+
+    /**
+     * Creates a source of keys picked at random from the given ones, such as only the keys
+     * that are valid in a game.
+     * @param seed the seed of the random sequence
+     * @param keys the keys to pick from
+     */
+    public RandomInputSource(long seed, String keys) {
         r = new Random(seed);
+        this.keys = keys;
     }
 
-    /** Returns a random letter between a and z.*/
+    /** Returns a random key, by default a letter between A and Z.*/
     public char getNextKey() {
-        return (char) (r.nextInt(26) + 'A');
+        return keys.charAt(r.nextInt(keys.length()));
     }
 
     public boolean possibleNextInput() {
@@ -0,0 +1,106 @@
+package byow.InputDemo;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keys sent over a network connection, one byte per key. Bytes are read in blocks into a
+ * buffer, so a burst of keys costs one read. Waiting for a key blocks the thread in the
+ * read, which parks a virtual thread without holding on to a platform thread, and waiting
+ * with a timeout uses the socket's read timeout. The source ends when the peer closes the
+ * connection or it fails.
+ */
+public class SocketInputSource implements InputSource {
+    private final Socket socket;
+    private final InputStream in;
+    private final byte[] buffer;
+    private int next;
+    private int count;
+    private boolean ended;
+
+    /**
+     * Creates a source reading from the socket.
+     * @param socket the connected socket
+     * @param bufferSize the most bytes read at once
+     */
+    public SocketInputSource(Socket socket, int bufferSize) {
+        this.socket = socket;
+        try {
+            this.in = socket.getInputStream();
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+        this.buffer = new byte[bufferSize];
+    }
+
+    /**
+     * Returns the next key, blocking until one arrives.
+     * @return the key, or NO_KEY if the connection ended first
+     */
+    public char getNextKey() {
+        if (next == count && !fill(0)) {
+            return NO_KEY;
+        }
+        return (char) (buffer[next++] & 0xFF);
+    }
+
+    public boolean possibleNextInput() {
+        return next < count || !ended;
+    }
+
+    @Override
+    public char pollKey(long timeout, TimeUnit unit) {
+        // A read timeout of 0 means no timeout, so wait at least a millisecond
+        if (next == count && !fill((int) Math.max(1, Math.min(unit.toMillis(timeout), Integer.MAX_VALUE)))) {
+            return NO_KEY;
+        }
+        return (char) (buffer[next++] & 0xFF);
+    }
+
+    @Override
+    public int drainKeys(char[] keys) {
+        try {
+            if (next == count && !ended && in.available() > 0) {
+                fill(0);
+            }
+        } catch (IOException excp) {
+            ended = true;
+        }
+        int n = Math.min(keys.length, count - next);
+        for (int i = 0; i < n; i += 1) {
+            keys[i] = (char) (buffer[next + i] & 0xFF);
+        }
+        next += n;
+        return n;
+    }
+
+    /**
+     * Reads the next block of bytes into the empty buffer.
+     * @param timeoutMillis the read timeout, or 0 to wait as long as it takes
+     * @return true if bytes were read, false on timeout or at the end of the connection
+     */
+    private boolean fill(int timeoutMillis) {
+        if (ended) {
+            return false;
+        }
+        try {
+            socket.setSoTimeout(timeoutMillis);
+            int n = in.read(buffer);
+            if (n <= 0) {
+                ended = true;
+                return false;
+            }
+            next = 0;
+            count = n;
+            return true;
+        } catch (SocketTimeoutException excp) {
+            return false;
+        } catch (IOException excp) {
+            ended = true;
+            return false;
+        }
+    }
+}
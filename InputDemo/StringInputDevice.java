@@ -19,4 +19,12 @@ public class StringInputDevice implements InputSource  {
     public boolean possibleNextInput() {
         return index < input.length();
     }
+
+    @Override
+    public int drainKeys(char[] keys) {
+        int n = Math.min(keys.length, input.length() - index);
+        input.getChars(index, index + n, keys, 0);
+        index += n;
+        return n;
+    }
 }
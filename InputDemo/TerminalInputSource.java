@@ -0,0 +1,106 @@
+package byow.InputDemo;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keys typed in the terminal the game runs in. A daemon thread reads standard input one
+ * byte per key and pushes each into a KeyQueue, where the game loop picks it up, so the
+ * loop never blocks on the terminal. The source ends when standard input does.
+ *
+ * Terminals hand a program its input a line at a time and echo it, so on Unix-like systems
+ * the terminal is switched with stty to pass every key at once without echoing it, and
+ * switched back when the JVM exits. Where stty is not available, keys arrive once Enter
+ * is pressed.
+ */
+public class TerminalInputSource implements InputSource {
+    private static final int CAPACITY = 1024;
+    private static final File TTY = new File("/dev/tty");
+
+    private final KeyQueue queue = new KeyQueue(CAPACITY);
+    private volatile boolean ended;
+
+    /**
+     * Starts reading keys from the stream.
+     * @param in the terminal's input, usually System.in
+     */
+    public TerminalInputSource(InputStream in) {
+        Thread reader = new Thread(() -> read(in), "pika-terminal");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Runs on the reader thread until the input ends.
+     */
+    private void read(InputStream in) {
+        try {
+            int b;
+            while ((b = in.read()) >= 0) {
+                queue.offer((char) b);
+            }
+        } catch (IOException excp) {
+            // Treated like the end of the input
+        }
+        ended = true;
+    }
+
+    /**
+     * Switches the terminal to pass every key at once without echoing it, and to switch
+     * back when the JVM exits.
+     * @return false if the terminal could not be switched, such as without stty
+     */
+    public static boolean rawMode() {
+        String saved = stty("-g");
+        if (saved == null || stty("-icanon", "-echo", "min", "1") == null) {
+            return false;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> stty(saved.trim())));
+        return true;
+    }
+
+    /**
+     * Runs stty on the terminal.
+     * @return what stty printed, or null if it failed
+     */
+    private static String stty(String... settings) {
+        if (!TTY.exists()) {
+            return null;
+        }
+        String[] command = new String[settings.length + 1];
+        command[0] = "stty";
+        System.arraycopy(settings, 0, command, 1, settings.length);
+        try {
+            Process process = new ProcessBuilder(command).redirectInput(TTY)
+                    .redirectError(ProcessBuilder.Redirect.DISCARD).start();
+            String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            return process.waitFor() == 0 ? output : null;
+        } catch (IOException excp) {
+            return null;
+        } catch (InterruptedException excp) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    public char getNextKey() {
+        return queue.take();
+    }
+
+    public boolean possibleNextInput() {
+        return !ended || queue.size() > 0;
+    }
+
+    @Override
+    public char pollKey(long timeout, TimeUnit unit) {
+        return queue.poll(unit.toNanos(timeout));
+    }
+
+    @Override
+    public int drainKeys(char[] keys) {
+        return queue.drain(keys);
+    }
+}
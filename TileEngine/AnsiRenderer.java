@@ -0,0 +1,265 @@
+package byow.TileEngine;
+
+import java.awt.Color;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Renders worlds to a terminal as characters, using each tile's character, text color and
+ * background color as 24-bit ANSI colors. Textures are not drawn. Like TERenderer, the
+ * first frame is drawn whole and later frames only redraw the tiles that changed, each
+ * run of changed tiles on a row starting with a cursor movement. Colors are only sent
+ * when they differ from the previous tile's.
+ *
+ * Everything is encoded into one reusable buffer and written to a single channel when the
+ * buffer fills up or the frame is done, so a frame costs a handful of writes at most.
+ * Throws IllegalArgumentException if the channel cannot be written to, like Utils.
+ */
+public class AnsiRenderer {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int CELL_SIZE = 64;
+    private static final byte ESC = 0x1b;
+
+    private final WritableByteChannel out;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private TETile[][] lastFrame;
+    private int foreground = -1;
+    private int background = -1;
+
+    /**
+     * Creates a renderer writing to the given channel.
+     * @param out the channel to write to, such as a terminal or a socket
+     */
+    public AnsiRenderer(WritableByteChannel out) {
+        this.out = out;
+    }
+
+    /**
+     * Creates a renderer writing to standard output, bypassing System.out.
+     * @return the renderer
+     */
+    public static AnsiRenderer standardOutput() {
+        System.out.flush();
+        return new AnsiRenderer(new FileOutputStream(FileDescriptor.out).getChannel());
+    }
+
+    /**
+     * Writes the world as lines of colored characters from the top row down, without
+     * moving the cursor or clearing the screen, such as for a log or a snapshot file.
+     * This does not change what renderChanges compares against.
+     * @param world the 2D TETile[][] array to print
+     */
+    public void print(TETile[][] world) {
+        int numXTiles = world.length;
+        int numYTiles = world[0].length;
+        for (int y = numYTiles - 1; y >= 0; y -= 1) {
+            for (int x = 0; x < numXTiles; x += 1) {
+                putTile(world, x, y);
+            }
+            putReset();
+            put((byte) '\n');
+        }
+        flush();
+    }
+
+    /**
+     * Clears the screen and draws the whole world from the top left corner.
+     * @param world the 2D TETile[][] array to render
+     */
+    public void renderFrame(TETile[][] world) {
+        int numXTiles = world.length;
+        int numYTiles = world[0].length;
+        putCsi();
+        put((byte) '2');
+        put((byte) 'J');
+        for (int y = numYTiles - 1; y >= 0; y -= 1) {
+            putCursor(0, numYTiles - 1 - y);
+            for (int x = 0; x < numXTiles; x += 1) {
+                putTile(world, x, y);
+            }
+        }
+        finishFrame(numYTiles);
+        lastFrame = TETile.copyOf(world);
+    }
+
+    /**
+     * Same as renderFrame, except that only the tiles that differ from the last frame are
+     * written, so a typical move sends two tiles instead of the whole world. If nothing has
+     * been drawn yet, or the world has a different size than the last frame, the whole
+     * frame is drawn as in renderFrame.
+     * @param world the 2D TETile[][] array to render
+     */
+    public void renderChanges(TETile[][] world) {
+        int numXTiles = world.length;
+        int numYTiles = world[0].length;
+        if (lastFrame == null || lastFrame.length != numXTiles || lastFrame[0].length != numYTiles) {
+            renderFrame(world);
+            return;
+        }
+        boolean changed = false;
+        int nextX = -1;
+        int nextY = -1;
+        for (int y = numYTiles - 1; y >= 0; y -= 1) {
+            for (int x = 0; x < numXTiles; x += 1) {
+                TETile tile = world[x][y];
+                if (tile == lastFrame[x][y]) {
+                    continue;
+                }
+                if (x != nextX || y != nextY) {
+                    putCursor(x, numYTiles - 1 - y);
+                }
+                putTile(world, x, y);
+                lastFrame[x][y] = tile;
+                nextX = x + 1;
+                nextY = y;
+                changed = true;
+            }
+        }
+        if (changed) {
+            finishFrame(numYTiles);
+        }
+    }
+
+    /**
+     * Makes the next call to renderChanges redraw the whole frame, such as after something
+     * else was written to the terminal.
+     */
+    public void invalidateAll() {
+        lastFrame = null;
+    }
+
+    /**
+     * Resets the colors, moves the cursor below the frame and writes out the frame.
+     */
+    private void finishFrame(int numYTiles) {
+        putReset();
+        putCursor(0, numYTiles);
+        flush();
+    }
+
+    /**
+     * Encodes the tile at world position (x, y), with its colors if they differ from the
+     * colors currently set.
+     */
+    private void putTile(TETile[][] world, int x, int y) {
+        TETile tile = world[x][y];
+        if (tile == null) {
+            throw new IllegalArgumentException("Tile at position x=" + x + ", y=" + y
+                    + " is null.");
+        }
+        if (buffer.remaining() < CELL_SIZE) {
+            flush();
+        }
+        foreground = putColor(tile.textColor(), foreground, 38);
+        background = putColor(tile.backgroundColor(), background, 48);
+        putChar(tile.character());
+    }
+
+    /**
+     * Sets a 24-bit foreground (38) or background (48) color unless it is already set.
+     * @return the color now set
+     */
+    private int putColor(Color color, int current, int layer) {
+        if (color == null) {
+            return current;
+        }
+        int rgb = color.getRGB() & 0xFFFFFF;
+        if (rgb == current) {
+            return current;
+        }
+        putCsi();
+        putNumber(layer);
+        put((byte) ';');
+        put((byte) '2');
+        put((byte) ';');
+        putNumber(rgb >> 16);
+        put((byte) ';');
+        putNumber((rgb >> 8) & 0xFF);
+        put((byte) ';');
+        putNumber(rgb & 0xFF);
+        put((byte) 'm');
+        return rgb;
+    }
+
+    /**
+     * Resets the colors to the terminal's own.
+     */
+    private void putReset() {
+        putCsi();
+        put((byte) '0');
+        put((byte) 'm');
+        foreground = -1;
+        background = -1;
+    }
+
+    /**
+     * Moves the cursor to a column and row of the screen, counted from 0 at the top left.
+     */
+    private void putCursor(int column, int row) {
+        putCsi();
+        putNumber(row + 1);
+        put((byte) ';');
+        putNumber(column + 1);
+        put((byte) 'H');
+    }
+
+    private void putCsi() {
+        put(ESC);
+        put((byte) '[');
+    }
+
+    /**
+     * Encodes a non-negative number in decimal.
+     */
+    private void putNumber(int n) {
+        if (n >= 10) {
+            putNumber(n / 10);
+        }
+        put((byte) ('0' + n % 10));
+    }
+
+    /**
+     * Encodes a character as UTF-8. Characters outside the Basic Multilingual Plane cannot
+     * be tile characters, so surrogates are written as '?'.
+     */
+    private void putChar(char c) {
+        if (c < 0x80) {
+            put((byte) c);
+        } else if (c < 0x800) {
+            put((byte) (0xC0 | c >> 6));
+            put((byte) (0x80 | c & 0x3F));
+        } else if (Character.isSurrogate(c)) {
+            put((byte) '?');
+        } else {
+            put((byte) (0xE0 | c >> 12));
+            put((byte) (0x80 | c >> 6 & 0x3F));
+            put((byte) (0x80 | c & 0x3F));
+        }
+    }
+
+    private void put(byte b) {
+        if (!buffer.hasRemaining()) {
+            flush();
+        }
+        buffer.put(b);
+    }
+
+    /**
+     * Writes out everything encoded so far.
+     */
+    private void flush() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        } finally {
+            buffer.clear();
+        }
+    }
+}
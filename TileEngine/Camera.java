@@ -0,0 +1,189 @@
+package byow.TileEngine;
+
+/**
+ * A window-sized view onto a world that may be larger than the window. The camera knows
+ * which world tile is at the lower left of the view and follows a target, such as the
+ * avatar, with a deadzone: the target moves freely while it stays at least deadzoneX
+ * tiles from the left and right edges of the view and deadzoneY tiles from the top and
+ * bottom, and the camera only scrolls when the target leaves that area.
+ *
+ * If the world's size is given with setBounds, the camera never shows anything outside
+ * the world, unless the world is smaller than the view, in which case the view stays at
+ * the world's lower left. Without bounds, as for a ChunkedWorld, the camera goes anywhere.
+ */
+public class Camera {
+    private final int width;
+    private final int height;
+    private final int deadzoneX;
+    private final int deadzoneY;
+    private boolean bounded;
+    private int worldWidth;
+    private int worldHeight;
+    private int left;
+    private int bottom;
+
+    /**
+     * Creates a camera looking at the lower left of the world.
+     * @param width width of the view in tiles
+     * @param height height of the view in tiles
+     * @param deadzoneX least number of tiles between the target and the left and right edges
+     * @param deadzoneY least number of tiles between the target and the top and bottom edges
+     */
+    public Camera(int width, int height, int deadzoneX, int deadzoneY) {
+        if (width < 1 || height < 1 || deadzoneX < 0 || deadzoneY < 0) {
+            throw new IllegalArgumentException("The view must be at least one tile and deadzones not negative");
+        }
+        this.width = width;
+        this.height = height;
+        // A deadzone wider than half the view keeps the target in the middle
+        this.deadzoneX = Math.min(deadzoneX, (width - 1) / 2);
+        this.deadzoneY = Math.min(deadzoneY, (height - 1) / 2);
+    }
+
+    /**
+     * Keeps the view inside a world of the given size from now on, and moves it inside now.
+     * @param w width of the world in tiles
+     * @param h height of the world in tiles
+     */
+    public void setBounds(int w, int h) {
+        this.bounded = true;
+        this.worldWidth = w;
+        this.worldHeight = h;
+        moveTo(left, bottom);
+    }
+
+    /**
+     * Lets the view go anywhere from now on.
+     */
+    public void clearBounds() {
+        this.bounded = false;
+    }
+
+    /**
+     * Scrolls the view just enough to bring the target back inside the deadzone.
+     * @param x x coordinate of the target in the world
+     * @param y y coordinate of the target in the world
+     * @return true if the view moved
+     */
+    public boolean follow(int x, int y) {
+        int newLeft = left;
+        int newBottom = bottom;
+        if (x < left + deadzoneX) {
+            newLeft = x - deadzoneX;
+        } else if (x > left + width - 1 - deadzoneX) {
+            newLeft = x - width + 1 + deadzoneX;
+        }
+        if (y < bottom + deadzoneY) {
+            newBottom = y - deadzoneY;
+        } else if (y > bottom + height - 1 - deadzoneY) {
+            newBottom = y - height + 1 + deadzoneY;
+        }
+        return moveTo(newLeft, newBottom);
+    }
+
+    /**
+     * Moves the view so the target is in its middle, as for the first frame of a game.
+     * @param x x coordinate of the target in the world
+     * @param y y coordinate of the target in the world
+     * @return true if the view moved
+     */
+    public boolean centerOn(int x, int y) {
+        return moveTo(x - width / 2, y - height / 2);
+    }
+
+    /**
+     * Moves the lower left of the view to the given world position, kept inside the
+     * bounds if there are any.
+     * @param x x coordinate of the world tile to show at the left of the view
+     * @param y y coordinate of the world tile to show at the bottom of the view
+     * @return true if the view moved
+     */
+    public boolean moveTo(int x, int y) {
+        if (bounded) {
+            x = Math.max(0, Math.min(x, worldWidth - width));
+            y = Math.max(0, Math.min(y, worldHeight - height));
+        }
+        boolean moved = x != left || y != bottom;
+        left = x;
+        bottom = y;
+        return moved;
+    }
+
+    /**
+     * Returns the x coordinate of the world tile at the left of the view.
+     * @return the leftmost column of the view
+     */
+    public int left() {
+        return left;
+    }
+
+    /**
+     * Returns the y coordinate of the world tile at the bottom of the view.
+     * @return the bottom row of the view
+     */
+    public int bottom() {
+        return bottom;
+    }
+
+    /**
+     * Returns the width of the view in tiles.
+     * @return the width of the view
+     */
+    public int width() {
+        return width;
+    }
+
+    /**
+     * Returns the height of the view in tiles.
+     * @return the height of the view
+     */
+    public int height() {
+        return height;
+    }
+
+    /**
+     * Returns true if the world tile is inside the view.
+     * @param x x coordinate in the world
+     * @param y y coordinate in the world
+     * @return true if the tile is drawn
+     */
+    public boolean contains(int x, int y) {
+        return x >= left && x < left + width && y >= bottom && y < bottom + height;
+    }
+
+    /**
+     * Translates a column of the view, such as the one under the mouse, to the world.
+     * @param viewX x coordinate in the view
+     * @return x coordinate in the world
+     */
+    public int toWorldX(int viewX) {
+        return viewX + left;
+    }
+
+    /**
+     * Translates a row of the view, such as the one under the mouse, to the world.
+     * @param viewY y coordinate in the view
+     * @return y coordinate in the world
+     */
+    public int toWorldY(int viewY) {
+        return viewY + bottom;
+    }
+
+    /**
+     * Translates a world column to the view.
+     * @param x x coordinate in the world
+     * @return x coordinate in the view, outside 0 to width - 1 if the tile is not shown
+     */
+    public int toViewX(int x) {
+        return x - left;
+    }
+
+    /**
+     * Translates a world row to the view.
+     * @param y y coordinate in the world
+     * @return y coordinate in the view, outside 0 to height - 1 if the tile is not shown
+     */
+    public int toViewY(int y) {
+        return y - bottom;
+    }
+}
@@ -0,0 +1,113 @@
+package byow.TileEngine;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * An off-screen image of a whole frame of tiles, composed with one drawImage per tile.
+ * The first time a tile is drawn, it is rendered into a bitmap the size of one tile,
+ * either its texture or its character on its background color, the same way TETile.draw
+ * would draw it; after that the bitmap is copied as it is. Positions are in tiles, with
+ * (0, 0) at the lower left like in TERenderer.
+ *
+ * Nothing here goes through StdDraw, so a FrameImage can be used without a window.
+ */
+public class FrameImage {
+    private static final int TILE_SIZE = 16;
+    private static final Font FONT = new Font("Monaco", Font.BOLD, TILE_SIZE - 2);
+    private final int width;
+    private final int height;
+    private final BufferedImage image;
+    private final Graphics2D graphics;
+    private final Map<TETile, BufferedImage> bitmaps = new IdentityHashMap<>();
+
+    /**
+     * Creates a black frame.
+     * @param width width of the frame in tiles
+     * @param height height of the frame in tiles
+     */
+    public FrameImage(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.image = new BufferedImage(width * TILE_SIZE, height * TILE_SIZE,
+                BufferedImage.TYPE_INT_RGB);
+        this.graphics = image.createGraphics();
+    }
+
+    /**
+     * Paints the whole frame black.
+     */
+    public void clear() {
+        graphics.setColor(Color.BLACK);
+        graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+    }
+
+    /**
+     * Draws a tile, replacing whatever was at its position.
+     * @param tile the tile
+     * @param x x coordinate of the tile in the frame
+     * @param y y coordinate of the tile in the frame
+     */
+    public void draw(TETile tile, int x, int y) {
+        graphics.drawImage(bitmap(tile), x * TILE_SIZE, (height - 1 - y) * TILE_SIZE, null);
+    }
+
+    /**
+     * Returns the frame as drawn so far. The image is reused by later draws.
+     * @return the frame
+     */
+    public BufferedImage image() {
+        return image;
+    }
+
+    /**
+     * Returns the width of the frame in tiles.
+     * @return the width
+     */
+    public int width() {
+        return width;
+    }
+
+    /**
+     * Returns the height of the frame in tiles.
+     * @return the height
+     */
+    public int height() {
+        return height;
+    }
+
+    /**
+     * Returns the bitmap of a tile, rendering it the first time the tile is seen. Textures
+     * larger than a tile are cut to the tile around their center.
+     */
+    private BufferedImage bitmap(TETile tile) {
+        BufferedImage bitmap = bitmaps.get(tile);
+        if (bitmap != null) {
+            return bitmap;
+        }
+        bitmap = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = bitmap.createGraphics();
+        if (!tile.drawTexture(g, TILE_SIZE / 2, TILE_SIZE / 2)) {
+            g.setColor(tile.backgroundColor());
+            g.fillRect(0, 0, TILE_SIZE, TILE_SIZE);
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
+                    RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setFont(FONT);
+            g.setColor(tile.textColor());
+            FontMetrics metrics = g.getFontMetrics();
+            String text = Character.toString(tile.character());
+            g.drawString(text, TILE_SIZE / 2f - metrics.stringWidth(text) / 2f,
+                    TILE_SIZE / 2f + metrics.getDescent());
+        }
+        g.dispose();
+        bitmaps.put(tile, bitmap);
+        return bitmap;
+    }
+}
@@ -0,0 +1,124 @@
+package byow.TileEngine;
+
+import edu.princeton.cs.algs4.StdDraw;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+
+/**
+ * A strip of text drawn over the world, such as a HUD. The texts are rendered into an
+ * image of their own, which TERenderer copies onto the canvas with every frame, and the
+ * image is only rendered again when one of the texts changes. Sizes and positions are
+ * given in tiles, like everywhere else in the tile engine.
+ */
+public class HudOverlay {
+    private static final int TILE_SIZE = 16;
+    private final int width;
+    private final int height;
+    private final Font font;
+    private final Color color;
+    private final int[] columns;
+    private final String[] texts;
+    private BufferedImage image;
+    private boolean stale;
+
+    /**
+     * Creates an overlay with one text slot per column, all empty.
+     * @param width width of the overlay in tiles
+     * @param height height of the overlay in tiles
+     * @param font font of the texts
+     * @param color color of the texts
+     * @param columns x coordinate, in tiles, of the left edge of each text
+     */
+    public HudOverlay(int width, int height, Font font, Color color, int... columns) {
+        this.width = width;
+        this.height = height;
+        this.font = font;
+        this.color = color;
+        this.columns = columns.clone();
+        this.texts = new String[columns.length];
+        this.stale = true;
+    }
+
+    /**
+     * Sets the text of a slot. The overlay is rendered again before it is next drawn,
+     * unless the text is the same as before.
+     * @param slot index of the slot, in the order the columns were given
+     * @param text the new text
+     * @return true if the text changed
+     */
+    public boolean setText(int slot, String text) {
+        if (text.equals(texts[slot])) {
+            return false;
+        }
+        texts[slot] = text;
+        stale = true;
+        return true;
+    }
+
+    /**
+     * Returns the width of the overlay in tiles.
+     * @return the width
+     */
+    public int width() {
+        return width;
+    }
+
+    /**
+     * Returns the height of the overlay in tiles.
+     * @return the height
+     */
+    public int height() {
+        return height;
+    }
+
+    /**
+     * Returns the rendered overlay, rendering it first if any text changed. The texts are
+     * centered vertically on the overlay, the way StdDraw.textLeft centers text on a point.
+     */
+    BufferedImage image() {
+        if (image == null) {
+            image = new BufferedImage(width * TILE_SIZE, height * TILE_SIZE,
+                    BufferedImage.TYPE_INT_ARGB);
+        }
+        if (stale) {
+            Graphics2D g = image.createGraphics();
+            g.setComposite(AlphaComposite.Clear);
+            g.fillRect(0, 0, image.getWidth(), image.getHeight());
+            g.setComposite(AlphaComposite.SrcOver);
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
+                    RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setFont(font);
+            g.setColor(color);
+            int baseline = image.getHeight() / 2 + g.getFontMetrics().getDescent();
+            for (int i = 0; i < texts.length; i++) {
+                if (texts[i] != null) {
+                    g.drawString(texts[i], columns[i] * TILE_SIZE, baseline);
+                }
+            }
+            g.dispose();
+            stale = false;
+        }
+        return image;
+    }
+
+    /**
+     * Draws the texts with StdDraw, for when the canvas cannot be drawn on directly.
+     * @param x x coordinate of the lower left tile of the overlay on the canvas
+     * @param y y coordinate of the lower left tile of the overlay on the canvas
+     */
+    void drawText(int x, int y) {
+        StdDraw.setFont(font);
+        StdDraw.setPenColor(color);
+        for (int i = 0; i < texts.length; i++) {
+            if (texts[i] != null) {
+                StdDraw.textLeft(x + columns[i], y + height / 2.0, texts[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package byow.TileEngine;
+
+import java.awt.Graphics2D;
+
+/**
+ * A TERenderer that composes every frame in a FrameImage of its own, copying one
+ * pre-rendered bitmap per tile, and then puts the frame on the canvas with a single
+ * drawImage instead of one or more StdDraw calls per tile. It takes the same worlds,
+ * offsets and overlays as TERenderer and can be used anywhere a TERenderer is.
+ *
+ * This is the game's renderer unless -Dbyow.renderer=stddraw is given. If StdDraw's
+ * off-screen image cannot be reached, it draws through TERenderer instead.
+ */
+public class Java2DRenderer extends TERenderer {
+    private FrameImage frame;
+    private int xOffset;
+    private int yOffset;
+    private boolean composing;
+
+    @Override
+    public void initialize(int w, int h, int xOff, int yOff) {
+        super.initialize(w, h, xOff, yOff);
+        frame = new FrameImage(w, h);
+        frame.clear();
+        xOffset = xOff;
+        yOffset = yOff;
+    }
+
+    @Override
+    void beginFrame(boolean clear) {
+        composing = StdDrawSurface.graphics() != null;
+        if (!composing) {
+            super.beginFrame(clear);
+            return;
+        }
+        if (clear) {
+            frame.clear();
+        }
+    }
+
+    @Override
+    void drawTile(TETile tile, int x, int y, boolean erase) {
+        if (!composing) {
+            super.drawTile(tile, x, y, erase);
+            return;
+        }
+        frame.draw(tile, x + xOffset, y + yOffset);
+    }
+
+    @Override
+    Graphics2D surface() {
+        return composing ? StdDrawSurface.graphics() : null;
+    }
+
+    @Override
+    void endFrame() {
+        Graphics2D g = surface();
+        if (g != null) {
+            g.drawImage(frame.image(), 0, 0, null);
+        }
+        super.endFrame();
+    }
+}
@@ -0,0 +1,79 @@
+package byow.TileEngine;
+
+import edu.princeton.cs.algs4.StdDraw;
+
+import java.awt.Graphics2D;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/**
+ * Gives Java2DRenderer the off-screen graphics that StdDraw draws into, so that a frame
+ * composed in a FrameImage can be put on the canvas with one drawImage. StdDraw keeps
+ * that graphics object private, so it can only be read through reflection, which depends
+ * on StdDraw's internals and may be refused by the module system. Only that one copy per
+ * frame goes through it; tiles are never drawn into StdDraw's image one by one.
+ *
+ * The shortcut is only taken after checking that StdDraw still has a static Graphics2D
+ * field named offscreen and that it can be read, and it can be turned off with
+ * -Dbyow.directDraw=false. Otherwise graphics() returns null and callers fall back to
+ * the public StdDraw API. Falling back because the image cannot be reached is printed
+ * once; nothing is printed when the shortcut works or was turned off.
+ */
+final class StdDrawSurface {
+    private static final Field OFFSCREEN = offscreenField();
+    private static volatile boolean reported;
+
+    private StdDrawSurface() {
+    }
+
+    /**
+     * Returns the graphics StdDraw currently draws into. StdDraw replaces it whenever
+     * the canvas size changes, so this should be fetched again for each frame.
+     * @return the off-screen graphics, or null if it cannot be reached
+     */
+    static Graphics2D graphics() {
+        if (OFFSCREEN == null) {
+            return null;
+        }
+        try {
+            Graphics2D g = (Graphics2D) OFFSCREEN.get(null);
+            if (g == null) {
+                report("StdDraw has no off-screen image yet");
+            }
+            return g;
+        } catch (IllegalAccessException | ClassCastException e) {
+            report("cannot read StdDraw's off-screen image (" + e + ")");
+            return null;
+        }
+    }
+
+    private static Field offscreenField() {
+        if (!Boolean.parseBoolean(System.getProperty("byow.directDraw", "true"))) {
+            return null;
+        }
+        try {
+            Field field = StdDraw.class.getDeclaredField("offscreen");
+            if (!Modifier.isStatic(field.getModifiers())
+                    || !Graphics2D.class.isAssignableFrom(field.getType())) {
+                report("StdDraw.offscreen is not a static Graphics2D in this version");
+                return null;
+            }
+            field.setAccessible(true);
+            return field;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            report("cannot reach StdDraw's off-screen image (" + e + ")");
+            return null;
+        }
+    }
+
+    /**
+     * Prints why frames are drawn through StdDraw instead, only the first time this is called.
+     */
+    private static synchronized void report(String reason) {
+        if (reported) {
+            return;
+        }
+        reported = true;
+        System.err.println("TileEngine: " + reason + "; drawing through StdDraw");
+    }
+}
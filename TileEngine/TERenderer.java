@@ -4,6 +4,8 @@ import edu.princeton.cs.algs4.StdDraw;
 
 import java.awt.Color;
 import java.awt.Font;
+import java.awt.Graphics2D;
+import java.util.Arrays;
 
 /**
  * Utility class for rendering tiles. 
@@ -14,6 +16,11 @@ public class TERenderer {
     private int height;
     private int xOffset;
     private int yOffset;
+    private TETile[][] lastFrame;
+    private TETile[][] view;
+    private HudOverlay overlay;
+    private int overlayX;
+    private int overlayY;
 
     /**
      * Same functionality as the other initialization method. The only difference is that the xOff
@@ -39,6 +46,8 @@ public class TERenderer {
 
         StdDraw.enableDoubleBuffering();
         StdDraw.show();
+        lastFrame = null;
+        overlay = null;
     }
 
     /**
@@ -83,16 +92,214 @@ public class TERenderer {
     public void renderFrame(TETile[][] world) {
         int numXTiles = world.length;
         int numYTiles = world[0].length;
-        StdDraw.clear(new Color(0, 0, 0));
+        beginFrame(true);
         for (int x = 0; x < numXTiles; x += 1) {
             for (int y = 0; y < numYTiles; y += 1) {
                 if (world[x][y] == null) {
                     throw new IllegalArgumentException("Tile at position x=" + x + ", y=" + y
                             + " is null.");
                 }
-                world[x][y].draw(x + xOffset, y + yOffset);
+                drawTile(world[x][y], x, y, false);
+            }
+        }
+        endFrame();
+        rememberFrame(world);
+    }
+
+    /**
+     * Same as renderFrame, except that only the tiles that differ from the last frame drawn
+     * by this renderer are redrawn, and the rest of the canvas is left as it is. A typical
+     * move changes two tiles, so this draws two tiles instead of the whole world.
+     *
+     * Anything drawn over the world by other code, such as text or a menu, stays on the
+     * canvas until the tiles underneath are redrawn. Call invalidate for the tiles that
+     * were drawn over, or invalidateAll after the canvas has been cleared.
+     * If nothing has been drawn yet, or the world has a different size than the last
+     * frame, the whole frame is drawn as in renderFrame.
+     * @param world the 2D TETile[][] array to render
+     */
+    public void renderChanges(TETile[][] world) {
+        int numXTiles = world.length;
+        int numYTiles = world[0].length;
+        if (lastFrame == null || lastFrame.length != numXTiles || lastFrame[0].length != numYTiles) {
+            renderFrame(world);
+            return;
+        }
+        if (overlay != null) {
+            invalidate(overlayX, overlayY, overlay.width(), overlay.height());
+        }
+        beginFrame(false);
+        for (int x = 0; x < numXTiles; x += 1) {
+            TETile[] column = world[x];
+            TETile[] lastColumn = lastFrame[x];
+            for (int y = 0; y < numYTiles; y += 1) {
+                TETile tile = column[y];
+                if (tile == lastColumn[y]) {
+                    continue;
+                }
+                if (tile == null) {
+                    throw new IllegalArgumentException("Tile at position x=" + x + ", y=" + y
+                            + " is null.");
+                }
+                drawTile(tile, x, y, true);
+                lastColumn[y] = tile;
+            }
+        }
+        endFrame();
+    }
+
+    /**
+     * Renders the part of a world that the camera sees, which may be much larger than the
+     * window. Only the tiles inside the view are looked at: they are copied into a buffer
+     * the size of the view, with tiles outside the world left blank, and the buffer is
+     * drawn as in renderChanges. The cost of a frame depends on the size of the window,
+     * not of the world, and when the camera has not moved only the tiles that changed are
+     * drawn. The overlay and invalidate take view coordinates, as the view is what is drawn.
+     *
+     * For a world that is not one array, such as a ChunkedWorld, copy the view into an
+     * array of the camera's size and pass it to renderChanges instead.
+     * @param world the 2D TETile[][] array holding the whole world
+     * @param camera the camera whose view is drawn
+     */
+    public void renderView(TETile[][] world, Camera camera) {
+        int w = camera.width();
+        int h = camera.height();
+        if (view == null || view.length != w || view[0].length != h) {
+            view = new TETile[w][h];
+        }
+        int worldWidth = world.length;
+        int worldHeight = world[0].length;
+        int left = camera.left();
+        int bottom = camera.bottom();
+        // The rows of the view that are inside the world, the same for every column
+        int firstY = Math.max(0, -bottom);
+        int lastY = Math.min(h, worldHeight - bottom);
+        for (int x = 0; x < w; x += 1) {
+            TETile[] column = view[x];
+            int worldX = left + x;
+            if (worldX < 0 || worldX >= worldWidth || firstY >= lastY) {
+                Arrays.fill(column, Tileset.NOTHING);
+                continue;
+            }
+            Arrays.fill(column, 0, firstY, Tileset.NOTHING);
+            System.arraycopy(world[worldX], bottom + firstY, column, firstY, lastY - firstY);
+            Arrays.fill(column, lastY, h, Tileset.NOTHING);
+        }
+        renderChanges(view);
+    }
+
+    /**
+     * Draws the overlay over the world at the end of every renderFrame and renderChanges,
+     * with its lower left tile at world position (x, y). renderChanges redraws the tiles
+     * under the overlay each time, so the overlay can change without the world changing.
+     * The overlay is removed by initialize or by setting it to null.
+     * @param hud the overlay, or null for none
+     * @param x x coordinate of the lower left tile of the overlay
+     * @param y y coordinate of the lower left tile of the overlay
+     */
+    public void setOverlay(HudOverlay hud, int x, int y) {
+        this.overlay = hud;
+        this.overlayX = x;
+        this.overlayY = y;
+    }
+
+    /**
+     * Marks a rectangle of tiles, in world coordinates, to be redrawn by the next call
+     * to renderChanges even if they have not changed.
+     * @param x x coordinate of the lower left tile
+     * @param y y coordinate of the lower left tile
+     * @param w width of the rectangle in tiles
+     * @param h height of the rectangle in tiles
+     */
+    public void invalidate(int x, int y, int w, int h) {
+        if (lastFrame == null) {
+            return;
+        }
+        int maxX = Math.min(x + w, lastFrame.length);
+        int maxY = Math.min(y + h, lastFrame[0].length);
+        for (int i = Math.max(x, 0); i < maxX; i += 1) {
+            for (int j = Math.max(y, 0); j < maxY; j += 1) {
+                lastFrame[i][j] = null;
             }
         }
+    }
+
+    /**
+     * Makes the next call to renderChanges redraw the whole frame. Use this after
+     * clearing the canvas or drawing a different screen over it.
+     */
+    public void invalidateAll() {
+        lastFrame = null;
+    }
+
+    /**
+     * Starts a frame, clearing the canvas first if clear is set.
+     */
+    void beginFrame(boolean clear) {
+        if (clear) {
+            StdDraw.clear(new Color(0, 0, 0));
+        }
+    }
+
+    /**
+     * Returns graphics that draw straight onto the canvas, for copying the overlay's image
+     * onto it, or null to draw through StdDraw's public calls, as TERenderer always does.
+     */
+    Graphics2D surface() {
+        return null;
+    }
+
+    /**
+     * Draws the tile at world position (x, y) through TETile.draw, painting over what was
+     * there first if erase is set.
+     */
+    void drawTile(TETile tile, int x, int y, boolean erase) {
+        int screenX = x + xOffset;
+        int screenY = y + yOffset;
+        if (erase) {
+            StdDraw.setPenColor(Color.BLACK);
+            StdDraw.filledSquare(screenX + 0.5, screenY + 0.5, 0.5);
+        }
+        tile.draw(screenX, screenY);
+    }
+
+    /**
+     * Finishes a frame by drawing the overlay over it and showing it.
+     */
+    void endFrame() {
+        drawOverlay(surface());
         StdDraw.show();
     }
+
+    /**
+     * Copies the overlay, if there is one, onto the canvas over the world.
+     */
+    private void drawOverlay(Graphics2D g) {
+        if (overlay == null) {
+            return;
+        }
+        int screenX = overlayX + xOffset;
+        int screenY = overlayY + yOffset;
+        if (g == null) {
+            overlay.drawText(screenX, screenY);
+        } else {
+            g.drawImage(overlay.image(), screenX * TILE_SIZE,
+                    (height - screenY - overlay.height()) * TILE_SIZE, null);
+        }
+    }
+
+    /**
+     * Keeps a copy of the tiles that are now on the canvas, reusing the previous copy
+     * when the world has the same size.
+     */
+    private void rememberFrame(TETile[][] world) {
+        if (lastFrame == null || lastFrame.length != world.length
+                || lastFrame[0].length != world[0].length) {
+            lastFrame = TETile.copyOf(world);
+            return;
+        }
+        for (int x = 0; x < world.length; x += 1) {
+            System.arraycopy(world[x], 0, lastFrame[x], 0, world[x].length);
+        }
+    }
 }
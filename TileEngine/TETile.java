@@ -1,11 +1,11 @@
 package byow.TileEngine;
 
 import java.awt.Color;
+import java.awt.Graphics2D;
 import java.util.Arrays;
 import java.util.Random;
 
 import edu.princeton.cs.algs4.StdDraw;
-import byow.Core.RandomUtils;
 
 /**
  * The TETile object is used to represent a single tile in your world. A 2D array of tiles make up a
@@ -20,6 +20,9 @@ public class TETile {
     private final Color backgroundColor;
     private final String description;
     private final String filepath;
+    private final TextureAtlas.Region texture;
+    // The texture's file resolved once, for drawing through StdDraw when the atlas cannot be used
+    private final String picture;
 
     /**
      * Full constructor for TETile objects.
@@ -27,7 +30,8 @@ public class TETile {
      * @param textColor The color of the character itself.
      * @param backgroundColor The color drawn behind the character.
      * @param description The description of the tile, shown in the GUI on hovering over the tile.
-     * @param filepath Full path to image to be used for this tile. Must be correct size (16x16)
+     * @param filepath Path to image to be used for this tile, absolute or relative to the
+     *                 working directory. Must be correct size (16x16)
      */
     public TETile(char character, Color textColor, Color backgroundColor, String description,
                   String filepath) {
@@ -36,6 +40,8 @@ public class TETile {
         this.backgroundColor = backgroundColor;
         this.description = description;
         this.filepath = filepath;
+        this.texture = filepath == null ? null : TextureAtlas.region(filepath);
+        this.picture = texture == null ? null : TextureAtlas.resolve(filepath).getPath();
     }
 
     /**
@@ -52,6 +58,8 @@ public class TETile {
         this.backgroundColor = backgroundColor;
         this.description = description;
         this.filepath = null;
+        this.texture = null;
+        this.picture = null;
     }
 
     /**
@@ -65,8 +73,8 @@ public class TETile {
 
 
     /**
-     * Draws the tile to the screen at location x, y. If a valid filepath is provided,
-     * we draw the image located at that filepath to the screen. Otherwise, we fall
+     * Draws the tile to the screen at location x, y. If the tile has a texture, we draw
+     * the image located at that filepath to the screen. Otherwise, we fall
      * back to the character and color representation for the tile.
      *
      * image provided must be of the right size (16x16). It will not be
@@ -75,14 +83,9 @@ public class TETile {
      * @param y y coordinate
      */
     public void draw(double x, double y) {
-        if (filepath != null) {
-            try {
-                StdDraw.picture(x + 0.5, y + 0.5, filepath);
-                return;
-            } catch (IllegalArgumentException e) {
-                // Exception happens because the file can't be found. In this case, fail silently
-                // and just use the character and background color for the tile.
-            }
+        if (texture != null) {
+            StdDraw.picture(x + 0.5, y + 0.5, picture);
+            return;
         }
 
         StdDraw.setPenColor(backgroundColor);
@@ -91,6 +94,23 @@ public class TETile {
         StdDraw.text(x + 0.5, y + 0.5, Character.toString(character()));
     }
 
+    /**
+     * Copies the tile's texture from the texture atlas into g, centered on the given pixel.
+     * Nothing is drawn if the tile has no texture, either because it was created without
+     * a filepath or because the image could not be loaded; use draw(x, y) in that case.
+     * @param g the graphics to draw into
+     * @param centerX x coordinate of the center of the tile, in pixels
+     * @param centerY y coordinate of the center of the tile, in pixels
+     * @return true if the texture was drawn, false if the tile has no texture
+     */
+    public boolean drawTexture(Graphics2D g, int centerX, int centerY) {
+        if (texture == null) {
+            return false;
+        }
+        texture.draw(g, centerX, centerY);
+        return true;
+    }
+
     /** Character representation of the tile. Used for drawing in text mode.
      * @return character representation
      */
@@ -107,6 +127,22 @@ public class TETile {
         return description;
     }
 
+    /**
+     * Color of the tile's character, used when the tile is drawn without a texture.
+     * @return text color of the tile
+     */
+    public Color textColor() {
+        return textColor;
+    }
+
+    /**
+     * Color behind the tile's character, used when the tile is drawn without a texture.
+     * @return background color of the tile
+     */
+    public Color backgroundColor() {
+        return backgroundColor;
+    }
+
     /**
      * Creates a copy of the given tile with a slightly different text color. The new
      * color will have a red value that is within dr of the current red value,
@@ -129,7 +165,8 @@ public class TETile {
     }
 
     private static int newColorValue(int v, int dv, Random r) {
-        int rawNewValue = v + RandomUtils.uniform(r, -dv, dv + 1);
+        // The same draw as RandomUtils.uniform(r, -dv, dv + 1), which takes an Rng
+        int rawNewValue = v - dv + r.nextInt(2 * dv + 1);
 
         // make sure value doesn't fall outside of the range 0 to 255.
         int newValue = Math.min(255, Math.max(0, rawNewValue));
@@ -0,0 +1,133 @@
+package byow.TileEngine;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+
+/**
+ * Decodes every tile texture once and packs them side by side into a single image.
+ * Each texture is then drawn by copying its region of that image, instead of looking
+ * the file up by name and decoding it on every draw.
+ *
+ * Relative file paths are resolved against the working directory. A texture that is
+ * missing or cannot be decoded is noted the first time it is asked for, and its tiles
+ * fall back to their character and colors from then on.
+ */
+public final class TextureAtlas {
+    private static final File CWD = new File(System.getProperty("user.dir"));
+    private static final Region MISSING = new Region(0, 0, 0, 0);
+    private static final HashMap<String, Region> REGIONS = new HashMap<>();
+    private static BufferedImage atlas = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+    private static int usedWidth = 0;
+
+    private TextureAtlas() {
+    }
+
+    /**
+     * A rectangle of the atlas holding one texture.
+     */
+    public static final class Region {
+        private final int x;
+        private final int y;
+        private final int width;
+        private final int height;
+
+        private Region(int x, int y, int width, int height) {
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+        }
+
+        /**
+         * Copies this texture from the atlas into g at its own size, centered on the
+         * given pixel.
+         * @param g the graphics to draw into
+         * @param centerX x coordinate of the center, in pixels
+         * @param centerY y coordinate of the center, in pixels
+         */
+        public void draw(Graphics2D g, int centerX, int centerY) {
+            int left = centerX - width / 2;
+            int top = centerY - height / 2;
+            g.drawImage(atlas, left, top, left + width, top + height,
+                    x, y, x + width, y + height, null);
+        }
+
+        /** Width of the texture in pixels.
+         * @return the width
+         */
+        public int width() {
+            return width;
+        }
+
+        /** Height of the texture in pixels.
+         * @return the height
+         */
+        public int height() {
+            return height;
+        }
+    }
+
+    /**
+     * Returns the atlas region holding the image at the given path, decoding the image
+     * and adding it to the atlas the first time the path is seen.
+     * @param filepath path to the image, absolute or relative to the working directory
+     * @return the region of the atlas, or null if the image is missing or unreadable
+     */
+    public static synchronized Region region(String filepath) {
+        Region region = REGIONS.get(filepath);
+        if (region == null) {
+            region = load(filepath);
+            REGIONS.put(filepath, region);
+        }
+        return region == MISSING ? null : region;
+    }
+
+    /**
+     * Returns the resolved file for the given path.
+     * @param filepath path to the image, absolute or relative to the working directory
+     * @return the file the path refers to
+     */
+    public static File resolve(String filepath) {
+        File file = new File(filepath);
+        return file.isAbsolute() ? file : new File(CWD, filepath);
+    }
+
+    /**
+     * Decodes the image at the given path and appends it to the right of the atlas.
+     */
+    private static Region load(String filepath) {
+        File file = resolve(filepath);
+        BufferedImage image;
+        try {
+            image = file.isFile() ? ImageIO.read(file) : null;
+        } catch (IOException e) {
+            image = null;
+        }
+        if (image == null) {
+            return MISSING;
+        }
+
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int newWidth = usedWidth + width;
+        if (newWidth > atlas.getWidth() || height > atlas.getHeight()) {
+            BufferedImage grown = new BufferedImage(Math.max(newWidth, atlas.getWidth() * 2),
+                    Math.max(height, atlas.getHeight()), BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = grown.createGraphics();
+            g.drawImage(atlas, 0, 0, null);
+            g.dispose();
+            atlas = grown;
+        }
+        Graphics2D g = atlas.createGraphics();
+        g.drawImage(image, usedWidth, 0, null);
+        g.dispose();
+
+        Region region = new Region(usedWidth, 0, width, height);
+        usedWidth = newWidth;
+        return region;
+    }
+}
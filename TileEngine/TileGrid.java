@@ -0,0 +1,181 @@
+package byow.TileEngine;
+
+import java.util.Arrays;
+
+/**
+ * A compact world that stores one byte per tile instead of one TETile reference.
+ * Each byte is the id of a tile in the Tileset palette. Tiles are laid out column by
+ * column, in the same order as the x-then-y loops used over TETile[x][y] arrays, so a
+ * 90x50 world takes 4500 bytes and full scans walk memory sequentially.
+ *
+ * Use fromTiles and toTiles to convert from and to the TETile[][] arrays that
+ * the renderer and Engine work with.
+ */
+public class TileGrid {
+    private final int width;
+    private final int height;
+    private final byte[] tiles;
+
+    /**
+     * Creates a grid of the given size where every tile has id 0 (Tileset.MY_NOTHING).
+     * @param width width of the grid in tiles
+     * @param height height of the grid in tiles
+     */
+    public TileGrid(int width, int height) {
+        this(width, height, new byte[width * height]);
+    }
+
+    /**
+     * Creates a grid that wraps the given tile ids, laid out column by column.
+     * The array is used directly, not copied.
+     * @param width width of the grid in tiles
+     * @param height height of the grid in tiles
+     * @param tiles tile ids, of length width * height
+     */
+    public TileGrid(int width, int height, byte[] tiles) {
+        if (tiles.length != width * height) {
+            throw new IllegalArgumentException("Expected " + width * height + " tiles, got "
+                    + tiles.length);
+        }
+        this.width = width;
+        this.height = height;
+        this.tiles = tiles;
+    }
+
+    /**
+     * Creates a grid holding the same tiles as the given 2D array.
+     * @param world the 2D world to convert
+     * @return the compact grid
+     */
+    public static TileGrid fromTiles(TETile[][] world) {
+        int w = world.length;
+        int h = world[0].length;
+        byte[] ids = new byte[w * h];
+        int i = 0;
+        for (int x = 0; x < w; x += 1) {
+            TETile[] column = world[x];
+            for (int y = 0; y < h; y += 1) {
+                ids[i] = Tileset.id(column[y]);
+                i += 1;
+            }
+        }
+        return new TileGrid(w, h, ids);
+    }
+
+    /**
+     * Creates a new 2D array holding the tiles of this grid.
+     * @return the 2D world
+     */
+    public TETile[][] toTiles() {
+        TETile[][] world = new TETile[width][height];
+        copyInto(world);
+        return world;
+    }
+
+    /**
+     * Writes the tiles of this grid into an existing 2D array of the same size.
+     * @param world the 2D world to overwrite
+     */
+    public void copyInto(TETile[][] world) {
+        int i = 0;
+        for (int x = 0; x < width; x += 1) {
+            TETile[] column = world[x];
+            for (int y = 0; y < height; y += 1) {
+                column[y] = Tileset.tile(tiles[i]);
+                i += 1;
+            }
+        }
+    }
+
+    /**
+     * Makes a copy of this grid.
+     * @return the copy
+     */
+    public TileGrid copy() {
+        return new TileGrid(width, height, Arrays.copyOf(tiles, tiles.length));
+    }
+
+    /** Width of the grid in tiles.
+     * @return the width
+     */
+    public int width() {
+        return width;
+    }
+
+    /** Height of the grid in tiles.
+     * @return the height
+     */
+    public int height() {
+        return height;
+    }
+
+    /**
+     * Returns the index of (x, y) in the backing array.
+     * @param x x coordinate
+     * @param y y coordinate
+     * @return the index of the tile
+     */
+    public int index(int x, int y) {
+        return x * height + y;
+    }
+
+    /**
+     * Returns the id of the tile at (x, y).
+     * @param x x coordinate
+     * @param y y coordinate
+     * @return the tile id
+     */
+    public byte id(int x, int y) {
+        return tiles[x * height + y];
+    }
+
+    /**
+     * Returns the tile at (x, y).
+     * @param x x coordinate
+     * @param y y coordinate
+     * @return the tile
+     */
+    public TETile get(int x, int y) {
+        return Tileset.tile(tiles[x * height + y]);
+    }
+
+    /**
+     * Returns true if the tile at (x, y) has the given id.
+     * @param x x coordinate
+     * @param y y coordinate
+     * @param id the tile id to compare against
+     * @return true if the ids match
+     */
+    public boolean is(int x, int y, byte id) {
+        return tiles[x * height + y] == id;
+    }
+
+    /**
+     * Sets the id of the tile at (x, y).
+     * @param x x coordinate
+     * @param y y coordinate
+     * @param id the new tile id
+     */
+    public void setId(int x, int y, byte id) {
+        tiles[x * height + y] = id;
+    }
+
+    /**
+     * Sets the tile at (x, y). The tile must be in the Tileset palette.
+     * @param x x coordinate
+     * @param y y coordinate
+     * @param tile the new tile
+     */
+    public void set(int x, int y, TETile tile) {
+        tiles[x * height + y] = Tileset.id(tile);
+    }
+
+    /**
+     * Returns the backing array of tile ids, laid out column by column. Changes to the
+     * array are visible in the grid.
+     * @return the tile ids
+     */
+    public byte[] ids() {
+        return tiles;
+    }
+}
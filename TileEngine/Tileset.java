@@ -28,14 +28,53 @@ public class Tileset {
     public static final TETile TREE = new TETile('♠', Color.green, Color.black, "tree");
 
     public static final TETile MY_AVATAR = new TETile('@', Color.white, Color.green, "you",
-            "/Users/enmanuel/su23-s155/proj3/byow/textures/pngegg-9.png");
+            "textures/pngegg-9.png");
     public static final TETile MY_WALL = new TETile('#', new Color(216, 128, 128), Color.darkGray,
-            "wall","/Users/enmanuel/su23-s155/proj3/byow/textures/d51a33b68cd3fa8-2.png");
+            "wall","textures/d51a33b68cd3fa8-2.png");
     public static final TETile MY_FLOOR = new TETile('·', new Color(128, 192, 128), Color.black,
-            "floor","/Users/enmanuel/su23-s155/proj3/byow/textures/grasstop.png");
+            "floor","textures/grasstop.png");
     public static final TETile MY_NOTHING = new TETile(' ', Color.black, Color.black, "nothing",
-            "/Users/enmanuel/su23-s155/proj3/byow/textures/Ocean_SpriteSheet-2.png");
+            "textures/Ocean_SpriteSheet-2.png");
 
+    /**
+     * Every tile a TileGrid can hold, indexed by tile id. New tiles must only ever be
+     * appended, so that the ids of existing tiles keep their meaning.
+     */
+    private static final TETile[] PALETTE = {MY_NOTHING, MY_WALL, MY_FLOOR, MY_AVATAR, LOCKED_DOOR,
+        UNLOCKED_DOOR, NOTHING, WALL, FLOOR, AVATAR, GRASS, WATER, FLOWER, SAND, MOUNTAIN, TREE};
+
+    /**
+     * Returns the tile with the given id.
+     * @param id id of the tile in the palette
+     * @return the tile with that id
+     */
+    public static TETile tile(int id) {
+        return PALETTE[id];
+    }
+
+    /**
+     * Returns the id of the given tile in the palette. Tiles are compared by identity,
+     * so only the constants of this class have an id.
+     * @param tile the tile to look up
+     * @return the id of the tile
+     * @throws IllegalArgumentException if the tile is not in the palette
+     */
+    public static byte id(TETile tile) {
+        for (int i = 0; i < PALETTE.length; i += 1) {
+            if (PALETTE[i] == tile) {
+                return (byte) i;
+            }
+        }
+        throw new IllegalArgumentException("Tile is not in the palette: " + tile.description());
+    }
+
+    /**
+     * Returns the number of tiles in the palette.
+     * @return the palette size
+     */
+    public static int paletteSize() {
+        return PALETTE.length;
+    }
 }
 
 